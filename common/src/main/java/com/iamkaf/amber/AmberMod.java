@@ -2,6 +2,8 @@ package com.iamkaf.amber;
 
 import com.iamkaf.amber.api.core.v2.AmberInitializer;
 import com.iamkaf.amber.api.core.v2.AmberModInfo;
+//? if >=1.20.5
+import com.iamkaf.amber.api.item.v1.EnchantmentCache;
 import com.iamkaf.amber.api.platform.v1.Platform;
 import com.iamkaf.amber.command.AmberCommands;
 import com.iamkaf.amber.networking.v1.AmberNetworking;
@@ -33,6 +35,8 @@ public class AmberMod {
         // Init Amber's own features
         AmberNetworking.initialize();
         AmberCommands.initialize();
+        //? if >=1.20.5
+        EnchantmentCache.initialize();
     }
 
     /**
@@ -0,0 +1,46 @@
+package com.iamkaf.amber.api.event.v1.events.common;
+
+import com.iamkaf.amber.api.event.v1.Event;
+import com.iamkaf.amber.api.event.v1.EventFactory;
+
+/**
+ * Events that occur when tags are loaded.
+ * <p>
+ * Equivalent to Fabric's {@code CommonLifecycleEvents.TAGS_LOADED} and Forge's and NeoForge's
+ * {@code TagsUpdatedEvent}.
+ */
+public final class TagEvents {
+    /**
+     * An event that is fired after tags have been loaded and bound to registries.
+     * <p>
+     * This event is fired on the logical server when data packs are loaded, including on {@code /reload}, and
+     * on the client when it receives tags from the server. Caches built from tag contents should be rebuilt
+     * when it fires.
+     * </p>
+     * <p>
+     * On Fabric before 1.19.4 this event only fires on the logical server, after the server starts and after
+     * each data pack reload. On Fabric before 1.16 it does not fire.
+     * </p>
+     */
+    public static final Event<TagsLoaded> TAGS_LOADED = EventFactory.createArrayBacked(
+            TagsLoaded.class, callbacks -> () -> {
+                for (TagsLoaded callback : callbacks) {
+                    callback.onTagsLoaded();
+                }
+            }
+    );
+
+    private TagEvents() {
+    }
+
+    /**
+     * Functional interface for handling {@link #TAGS_LOADED} callbacks.
+     */
+    @FunctionalInterface
+    public interface TagsLoaded {
+        /**
+         * Called after tags have been loaded.
+         */
+        void onTagsLoaded();
+    }
+}
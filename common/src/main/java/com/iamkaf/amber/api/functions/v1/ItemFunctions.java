@@ -1,5 +1,14 @@
 package com.iamkaf.amber.api.functions.v1;
 
+import com.iamkaf.amber.api.inventory.v1.CompiledMatcher;
+import com.iamkaf.amber.api.inventory.v1.InventoryIndex;
+import com.iamkaf.amber.api.inventory.v1.InventorySnapshot;
+import com.iamkaf.amber.api.inventory.v1.InventoryTransaction;
+import com.iamkaf.amber.api.inventory.v1.InventoryView;
+//? if >=1.20.5
+import com.iamkaf.amber.api.item.v1.EnchantmentCache;
+import com.iamkaf.amber.api.item.v1.ItemClassifier;
+import com.iamkaf.amber.api.item.v1.StackFingerprint;
 import com.iamkaf.amber.compat.ItemCompat;
 //? if >=1.18.2
 import net.minecraft.core.Holder;
@@ -14,14 +23,8 @@ import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.entity.EquipmentSlotGroup;
 import net.minecraft.world.entity.ai.attributes.Attribute;
 import net.minecraft.world.entity.ai.attributes.AttributeModifier;
-//? if >=1.16
-import net.minecraft.world.entity.ai.attributes.Attributes;
-//? if <1.16
-/*import net.minecraft.world.entity.monster.SharedMonsterAttributes;*/
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
-//? if <1.21.2
-/*import net.minecraft.world.item.ArmorItem;*/
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.enchantment.Enchantment;
@@ -31,12 +34,15 @@ import net.minecraft.world.item.component.ItemAttributeModifiers;
 //? if >=1.20.5
 import net.minecraft.world.item.enchantment.ItemEnchantments;
 import net.minecraft.world.level.ItemLike;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -65,6 +71,16 @@ public final class ItemFunctions {
      * @return true if the item was found and consumed, false otherwise.
      */
     public static boolean consumeIfAvailable(Inventory inventory, ItemLike item) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            int slot = index.firstSlot(item, 1);
+            if (slot < 0) {
+                return false;
+            }
+            if (consumeFromSlot(inventory, index, slot, 1, stack -> stackItem(stack) == itemLikeItem(item))) {
+                return true;
+            }
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stackItem(stack) == itemLikeItem(item) && stackCount(stack) > 0) {
@@ -84,6 +100,16 @@ public final class ItemFunctions {
      * @return true if the item was found and consumed, false otherwise.
      */
     public static boolean consumeIfAvailable(Inventory inventory, ItemLike item, int amount) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            int slot = index.firstSlot(item, amount);
+            if (slot < 0) {
+                return false;
+            }
+            if (consumeFromSlot(inventory, index, slot, amount, stack -> stackItem(stack) == itemLikeItem(item))) {
+                return true;
+            }
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stackItem(stack) == itemLikeItem(item) && stackCount(stack) >= amount) {
@@ -109,12 +135,47 @@ public final class ItemFunctions {
         return false;
     }
 
+    /**
+     * Checks if the inventory contains an item the matcher accepts and shrinks the stack by the amount specified.
+     * Returns true if it does.
+     */
+    public static boolean consumeIfAvailable(Inventory inventory, CompiledMatcher matcher, int amount) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            int slot = index.firstSlot(matcher, amount);
+            if (slot < 0) {
+                return false;
+            }
+            if (consumeFromSlot(inventory, index, slot, amount, matcher)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < inventorySize(inventory); i++) {
+            ItemStack stack = inventoryItem(inventory, i);
+            if (matcher.test(stack) && stackCount(stack) >= amount) {
+                shrinkStack(stack, amount);
+                return true;
+            }
+        }
+        return false;
+    }
+
     //? if >=1.18.2 {
     /**
      * Checks if the inventory contains the item and shrinks the stack by one.
      * Returns true if it does.
      */
     public static boolean consumeIfAvailable(Inventory inventory, TagKey<Item> tag) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            int slot = index.firstSlot(tag, 1);
+            if (slot < 0) {
+                return false;
+            }
+            if (consumeFromSlot(inventory, index, slot, 1, stack -> stack.is(tag))) {
+                return true;
+            }
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stack.is(tag) && stackCount(stack) > 0) {
@@ -130,6 +191,16 @@ public final class ItemFunctions {
      * Returns true if it does.
      */
     public static boolean consumeIfAvailable(Inventory inventory, TagKey<Item> tag, int amount) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            int slot = index.firstSlot(tag, amount);
+            if (slot < 0) {
+                return false;
+            }
+            if (consumeFromSlot(inventory, index, slot, amount, stack -> stack.is(tag))) {
+                return true;
+            }
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stack.is(tag) && stackCount(stack) >= amount) {
@@ -146,6 +217,10 @@ public final class ItemFunctions {
      * Returns true if it does.
      */
     public static boolean has(Inventory inventory, ItemLike item) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            return index.count(item) > 0;
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stackItem(stack) == itemLikeItem(item) && stackCount(stack) > 0) {
@@ -183,12 +258,51 @@ public final class ItemFunctions {
         return false;
     }
 
+    /**
+     * Checks if the inventory contains an item the matcher accepts.
+     * Returns true if it does.
+     */
+    public static boolean has(Inventory inventory, CompiledMatcher matcher) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            return index.firstSlot(matcher, 1) >= 0;
+        }
+        for (int i = 0; i < inventorySize(inventory); i++) {
+            if (matcher.test(inventoryItem(inventory, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the inventory contains an item the matcher accepts in the amount specified.
+     * Returns true if it does.
+     */
+    public static boolean has(Inventory inventory, CompiledMatcher matcher, int amount) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            return index.firstSlot(matcher, amount) >= 0;
+        }
+        for (int i = 0; i < inventorySize(inventory); i++) {
+            ItemStack stack = inventoryItem(inventory, i);
+            if (matcher.test(stack) && stackCount(stack) >= amount) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     //? if >=1.18.2 {
     /**
      * Checks if the inventory contains the item.
      * Returns true if it does.
      */
     public static boolean has(Inventory inventory, TagKey<Item> tag) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            return index.count(tag) > 0;
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stack.is(tag) && stackCount(stack) > 0) {
@@ -203,6 +317,10 @@ public final class ItemFunctions {
      * Returns true if it does.
      */
     public static boolean has(Inventory inventory, TagKey<Item> tag, int amount) {
+        InventoryIndex index = InventoryIndex.get(inventory);
+        if (index != null) {
+            return index.firstSlot(tag, amount + 1) >= 0;
+        }
         for (int i = 0; i < inventorySize(inventory); i++) {
             ItemStack stack = inventoryItem(inventory, i);
             if (stack.is(tag) && stackCount(stack) > amount) {
@@ -213,6 +331,34 @@ public final class ItemFunctions {
     }
     //?}
 
+    /**
+     * Starts a transaction that consumes several ingredients at once, drawing each from as many stacks as
+     * needed, or consumes nothing if any of them is missing.
+     *
+     * @param inventory The inventory to consume from.
+     * @return A new transaction.
+     */
+    public static InventoryTransaction transaction(Inventory inventory) {
+        return InventoryTransaction.begin(inventory);
+    }
+
+    /**
+     * Shrinks the stack the index picked, after checking the live stack still matches. Stacks can be edited in
+     * place without the inventory reporting a change, so on a mismatch the index is invalidated and the caller
+     * falls back to scanning the inventory.
+     */
+    private static boolean consumeFromSlot(Inventory inventory, InventoryIndex index, int slot, int amount,
+                                           Predicate<ItemStack> filter) {
+        ItemStack stack = inventoryItem(inventory, slot);
+        if (stack.isEmpty() || stackCount(stack) < amount || !filter.test(stack)) {
+            index.invalidate();
+            return false;
+        }
+        shrinkStack(stack, amount);
+        index.invalidate();
+        return true;
+    }
+
     /**
      * Executes a predicate on each ItemStack in the inventory.
      */
@@ -225,6 +371,7 @@ public final class ItemFunctions {
     /**
      * Gets all items from the inventory as a NonNullList.
      * This is useful for inventory operations that need a mutable list copy.
+     * Code that only reads the inventory, especially every frame, should use {@link #inventoryView} instead.
      *
      * @param inventory The inventory to get items from.
      * @return A NonNullList containing all ItemStacks from the inventory.
@@ -241,6 +388,7 @@ public final class ItemFunctions {
     /**
      * Gets all armor items from a player's equipment slots.
      * Returns a list in the order: head, chest, legs, feet.
+     * Code that reads the armor every frame should keep an {@link #armorView} instead.
      *
      * @param player The player to get armor from.
      * @return A List containing the four armor slot ItemStacks.
@@ -255,6 +403,41 @@ public final class ItemFunctions {
         );
     }
 
+    /**
+     * Gets a read-only view of the inventory's slots. The view reads the live slots, so it can be kept
+     * instead of copying the inventory on every call.
+     *
+     * @param inventory The inventory to view.
+     * @return A read-only list backed by the inventory.
+     */
+    public static List<ItemStack> inventoryView(Inventory inventory) {
+        return InventoryView.of(inventory);
+    }
+
+    /**
+     * Gets a read-only view of a player's armor slots, in the order: head, chest, legs, feet.
+     * The view reads the live slots, so it can be kept instead of calling {@link #getArmorSlots} repeatedly.
+     *
+     * @param player The player whose armor to view.
+     * @return A read-only list backed by the player's equipment.
+     */
+    public static List<ItemStack> armorView(Player player) {
+        return InventoryView.armor(player);
+    }
+
+    /**
+     * Captures the inventory's slots into a snapshot of primitive arrays, reusing it to avoid allocation.
+     *
+     * @param inventory The inventory to capture.
+     * @param snapshot  The snapshot to overwrite, or null to create one.
+     * @return The snapshot.
+     */
+    public static InventorySnapshot snapshot(Inventory inventory, @Nullable InventorySnapshot snapshot) {
+        InventorySnapshot target = snapshot != null ? snapshot : new InventorySnapshot();
+        target.capture(inventory);
+        return target;
+    }
+
     // ==================== ITEM OPERATIONS ====================
 
     /**
@@ -428,10 +611,11 @@ public final class ItemFunctions {
             return false;
         }
 
-        // Check each enchantment in the item to see if it matches the specified Identifier
+        // Compare against the resolved holders, so each entry is an identity check
+        Holder<Enchantment>[] holders = EnchantmentCache.holders(enchantment);
         for (var enchantmentEntry : enchantments.entrySet()) {
             Holder<Enchantment> enchantmentHolder = enchantmentEntry.getKey();
-            if (enchantmentHolder.is(enchantment)) {
+            if (EnchantmentCache.is(enchantmentHolder, holders, enchantment)) {
                 return true;
             }
         }
@@ -460,7 +644,7 @@ public final class ItemFunctions {
         // Iterate through enchantment entries to find matching enchantment
         for (var entry : enchantments.entrySet()) {
             Holder<Enchantment> enchantmentHolder = entry.getKey();
-            if (enchantmentHolder.value().equals(enchantment)) {
+            if (enchantmentHolder.value() == enchantment || enchantmentHolder.value().equals(enchantment)) {
                 return entry.getIntValue() > 0;
             }
         }
@@ -489,7 +673,7 @@ public final class ItemFunctions {
         // Iterate through enchantment entries to find matching enchantment
         for (var entry : enchantments.entrySet()) {
             Holder<Enchantment> enchantmentHolder = entry.getKey();
-            if (enchantmentHolder.value().equals(enchantment)) {
+            if (enchantmentHolder.value() == enchantment || enchantmentHolder.value().equals(enchantment)) {
                 return entry.getIntValue();
             }
         }
@@ -518,10 +702,11 @@ public final class ItemFunctions {
             return 0;
         }
 
-        // Check each enchantment in the item to see if it matches the specified Identifier
+        // Compare against the resolved holders, so each entry is an identity check
+        Holder<Enchantment>[] holders = EnchantmentCache.holders(enchantment);
         for (var entry : enchantments.entrySet()) {
             Holder<Enchantment> enchantmentHolder = entry.getKey();
-            if (enchantmentHolder.is(enchantment)) {
+            if (EnchantmentCache.is(enchantmentHolder, holders, enchantment)) {
                 return entry.getIntValue();
             }
         }
@@ -529,6 +714,35 @@ public final class ItemFunctions {
         //?}
     }
 
+    //? if >=1.20.5 {
+    /**
+     * Gets the levels of several enchantments on the ItemStack in one pass over its enchantments.
+     * Holders are compared by identity; see {@link EnchantmentCache#get(Identifier)} to resolve them.
+     *
+     * @param stack        The ItemStack to check.
+     * @param enchantments The enchantments to get the levels for.
+     * @return The level of each enchantment at the same index, 0 where not present.
+     */
+    @SafeVarargs
+    public static int[] getEnchantmentLevels(ItemStack stack, Holder<Enchantment>... enchantments) {
+        int[] levels = new int[enchantments.length];
+        ItemEnchantments present = stack.getEnchantments();
+        if (present.isEmpty()) {
+            return levels;
+        }
+
+        for (var entry : present.entrySet()) {
+            Holder<Enchantment> enchantmentHolder = entry.getKey();
+            for (int i = 0; i < enchantments.length; i++) {
+                if (enchantments[i] == enchantmentHolder) {
+                    levels[i] = entry.getIntValue();
+                }
+            }
+        }
+        return levels;
+    }
+    //?}
+
     /**
      * Checks if the ItemStack is enchanted with any enchantments.
      *
@@ -551,113 +765,101 @@ public final class ItemFunctions {
     }
     //?}
 
+    // ==================== STACK GROUPING OPERATIONS ====================
+
+    /**
+     * Gets a 64-bit fingerprint of the ItemStack's item and data, ignoring its count.
+     * Equal stacks always share a fingerprint; see {@link StackFingerprint} for details.
+     *
+     * @param stack The ItemStack to fingerprint.
+     * @return The fingerprint, or 0 for an empty stack.
+     */
+    public static long fingerprint(ItemStack stack) {
+        return StackFingerprint.of(stack);
+    }
+
+    /**
+     * Groups ItemStacks with the same item and data in one pass, summing their counts.
+     * Totals may exceed the item's maximum stack size.
+     *
+     * @param stacks The ItemStacks to group. They are not modified.
+     * @return One copy per group with the group's total count, in the order groups were first seen.
+     */
+    public static List<ItemStack> groupStacks(Collection<ItemStack> stacks) {
+        return StackFingerprint.group(stacks);
+    }
+
     // ==================== ITEM CLASSIFICATION OPERATIONS ====================
 
     /**
-     * Checks if the ItemStack is a tool using the modern Minecraft 1.21.7+ DataComponents system.
-     * Uses DataComponents.TOOL to identify tools like pickaxes, axes, shovels, etc.
+     * Checks if the ItemStack is a tool, such as a pickaxe, axe or shovel.
+     * Looks the item up in the {@link ItemClassifier} table unless the stack's data differs from its item's.
      *
      * @param stack The ItemStack to check.
      * @return true if the item has tool properties, false otherwise.
      * @since 8.3.0
      */
     public static boolean isTool(ItemStack stack) {
-        //? if <1.20.5
-        /*return stackItem(stack) instanceof net.minecraft.world.item.TieredItem;*/
-        //? if >=1.20.5
-        return stack.has(DataComponents.TOOL);
+        return ItemClassifier.is(stack, ItemClassifier.TOOL);
     }
 
     /**
-     * Checks if the Item is a tool using the modern Minecraft 1.21.7+ DataComponents system.
-     * Creates a default instance to check for tool properties.
+     * Checks if the Item is a tool, using the {@link ItemClassifier} table.
      *
      * @param item The Item to check.
      * @return true if the item has tool properties, false otherwise.
      * @since 8.3.0
      */
     public static boolean isTool(Item item) {
-        //? if <1.20.5
-        /*return item instanceof net.minecraft.world.item.TieredItem;*/
-        //? if >=1.20.5
-        return item.getDefaultInstance().has(DataComponents.TOOL);
+        return ItemClassifier.is(item, ItemClassifier.TOOL);
     }
 
     /**
-     * Checks if the ItemStack is a weapon using the modern Minecraft 1.21.7+ DataComponents system.
-     * Uses DataComponents.WEAPON to identify weapons like swords, tridents, etc.
+     * Checks if the ItemStack is a weapon, such as a sword or trident.
+     * Looks the item up in the {@link ItemClassifier} table unless the stack's data differs from its item's.
      *
      * @param stack The ItemStack to check.
      * @return true if the item has weapon properties, false otherwise.
      * @since 8.3.0
      */
     public static boolean isWeapon(ItemStack stack) {
-        //? if <1.16
-        /*return stack.getAttributeModifiers(EquipmentSlot.MAINHAND).containsKey(SharedMonsterAttributes.ATTACK_DAMAGE.getName());*/
-        //? if <1.20.5 && >=1.16
-        /*return stackAttributeModifiers(stack, EquipmentSlot.MAINHAND).containsKey(attackDamageAttribute());*/
-        //? if >=1.20.5 {
-        //? if >=1.21.5
-        return stack.has(DataComponents.WEAPON);
-        //? if <1.21.5 {
-        /*return stack.getOrDefault(DataComponents.ATTRIBUTE_MODIFIERS, ItemAttributeModifiers.EMPTY)
-                .modifiers()
-                .stream()
-                .anyMatch(modifier -> modifier.attribute().equals(Attributes.ATTACK_DAMAGE)
-                        && modifier.modifier().amount() > 0.0D);
-        *///?}
-        //?}
+        return ItemClassifier.is(stack, ItemClassifier.WEAPON);
     }
 
     /**
-     * Checks if the Item is a weapon using the modern Minecraft 1.21.7+ DataComponents system.
-     * Creates a default instance to check for weapon properties.
+     * Checks if the Item is a weapon, using the {@link ItemClassifier} table.
      *
      * @param item The Item to check.
      * @return true if the item has weapon properties, false otherwise.
      * @since 8.3.0
      */
     public static boolean isWeapon(Item item) {
-        //? if <1.20.5
-        /*return isWeapon(itemDefaultInstance(item));*/
-        //? if >=1.20.5 {
-        //? if >=1.21.5
-        return item.getDefaultInstance().has(DataComponents.WEAPON);
-        //? if <1.21.5
-        /*return isWeapon(item.getDefaultInstance());*/
-        //?}
+        return ItemClassifier.is(item, ItemClassifier.WEAPON);
     }
 
     /**
-     * Checks if the ItemStack is armor using the modern Minecraft 1.21.7+ DataComponents system.
-     * Uses DataComponents.EQUIPPABLE to identify armor and other equippable items.
-     * Note: This assumes all EQUIPPABLE items are armor for practical purposes.
+     * Checks if the ItemStack is armor.
+     * Looks the item up in the {@link ItemClassifier} table unless the stack's data differs from its item's.
+     * Note: On 1.21.2+ this treats all equippable items as armor for practical purposes.
      *
      * @param stack The ItemStack to check.
      * @return true if the item can be equipped, false otherwise.
      * @since 8.3.0
      */
     public static boolean isArmor(ItemStack stack) {
-        //? if >=1.21.2
-        return stack.has(DataComponents.EQUIPPABLE);
-        //? if <1.21.2
-        /*return stackItem(stack) instanceof ArmorItem;*/
+        return ItemClassifier.is(stack, ItemClassifier.ARMOR);
     }
 
     /**
-     * Checks if the Item is armor using the modern Minecraft 1.21.7+ DataComponents system.
-     * Creates a default instance to check for equippable properties.
-     * Note: This assumes all EQUIPPABLE items are armor for practical purposes.
+     * Checks if the Item is armor, using the {@link ItemClassifier} table.
+     * Note: On 1.21.2+ this treats all equippable items as armor for practical purposes.
      *
      * @param item The Item to check.
      * @return true if the item can be equipped, false otherwise.
      * @since 8.3.0
      */
     public static boolean isArmor(Item item) {
-        //? if >=1.21.2
-        return item.getDefaultInstance().has(DataComponents.EQUIPPABLE);
-        //? if <1.21.2
-        /*return item instanceof ArmorItem;*/
+        return ItemClassifier.is(item, ItemClassifier.ARMOR);
     }
 
     // ==================== ARMOR TIER OPERATIONS ====================
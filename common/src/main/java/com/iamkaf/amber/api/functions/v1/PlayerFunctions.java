@@ -19,6 +19,7 @@ import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundEvent;
 import net.minecraft.sounds.SoundSource;
+import com.iamkaf.amber.api.world.v1.SoundCoalescer;
 import com.iamkaf.amber.compat.PlayerCompat;
 import net.minecraft.world.Container;
 import net.minecraft.world.entity.EquipmentSlot;
@@ -638,6 +639,14 @@ public final class PlayerFunctions {
      */
     public static void playSound(Player player, SoundEvent sound, SoundSource source, float volume, float pitch) {
         if (player instanceof ServerPlayer serverPlayer) {
+            //? if >=1.18.2
+            if (SoundCoalescer.queue(serverPlayer, player.getX(), player.getY(), player.getZ(), Holder.direct(sound), source, volume, pitch)) {
+            //? if <1.18.2 && >=1.15
+            /*if (SoundCoalescer.queue(serverPlayer, player.getX(), player.getY(), player.getZ(), sound, source, volume, pitch)) {*/
+            //? if <1.15
+            /*if (SoundCoalescer.queue(serverPlayer, player.x, player.y, player.z, sound, source, volume, pitch)) {*/
+                return;
+            }
             //? if >=1.19 {
             sendPacket(serverPlayer, new ClientboundSoundPacket(
                     //? if >=1.19.3
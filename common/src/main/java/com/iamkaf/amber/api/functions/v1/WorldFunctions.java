@@ -1,13 +1,21 @@
 package com.iamkaf.amber.api.functions.v1;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
+import com.iamkaf.amber.api.item.v1.StackFingerprint;
+import com.iamkaf.amber.api.world.v1.BiomeCache;
+import com.iamkaf.amber.api.world.v1.BlockBatch;
+import com.iamkaf.amber.api.world.v1.BlockBoxMesh;
+import com.iamkaf.amber.api.world.v1.BlockFloodFill;
+import com.iamkaf.amber.api.world.v1.BlockShape;
+import com.iamkaf.amber.api.world.v1.EntitySpatialHash;
+import com.iamkaf.amber.api.world.v1.RegionSnapshot;
+import com.iamkaf.amber.api.world.v1.SoundCoalescer;
+//? if >=1.19
+import com.iamkaf.amber.api.world.v1.StructureCache;
+import com.iamkaf.amber.api.world.v1.VoxelRaycaster;
 import com.iamkaf.amber.compat.WorldCompat;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 //? if >=1.18.2
 import net.minecraft.core.Holder;
-import net.minecraft.core.Vec3i;
 //? if >=1.19
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.level.ServerLevel;
@@ -37,6 +45,7 @@ import net.minecraft.world.level.levelgen.structure.Structure;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.Container;
 import net.minecraft.world.DifficultyInstance;
 import net.minecraft.world.Difficulty;
 import org.jetbrains.annotations.NotNull;
@@ -44,7 +53,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * Consolidated utility class for world, level, sound, and geometry operations.
@@ -148,6 +156,60 @@ public final class WorldFunctions {
         dropItem(level, new ItemStack(stack), pos, delta);
     }
 
+    /**
+     * Spawns many items at once with as few item entities as possible.
+     * Identical stacks are merged up to their maximum stack size before anything is spawned, and the
+     * resulting entities are fanned out around the position in a fixed pattern, so the same input always
+     * drops the same way. The input stacks are not modified.
+     *
+     * @param level  The game level or world instance where the items will be dropped.
+     * @param stacks The ItemStacks to drop.
+     * @param pos    The position where the items will be dropped.
+     * @return The number of item entities spawned.
+     */
+    public static int dropItems(Level level, Collection<ItemStack> stacks, Vec3 pos) {
+        return dropItems(level, stacks, pos, null);
+    }
+
+    /**
+     * Spawns many items at once, first filling a container and dropping only what does not fit.
+     * Identical stacks are merged up to their maximum stack size, and the leftover item entities are
+     * fanned out around the position in a fixed pattern. The input stacks are not modified.
+     *
+     * @param level     The game level or world instance where the items will be dropped.
+     * @param stacks    The ItemStacks to drop.
+     * @param pos       The position where the items will be dropped.
+     * @param container The container to fill before dropping, or null to drop everything.
+     * @return The number of item entities spawned.
+     */
+    public static int dropItems(Level level, Collection<ItemStack> stacks, Vec3 pos, @Nullable Container container) {
+        if (level == null) return 0;
+
+        List<ItemStack> merged = new ArrayList<>();
+        for (ItemStack remaining : StackFingerprint.group(stacks)) {
+            while (!remaining.isEmpty()) {
+                merged.add(remaining.split(remaining.getMaxStackSize()));
+            }
+        }
+
+        if (container != null) {
+            insertInto(container, merged);
+        }
+
+        // Spread the entities on a golden-angle spiral, so neighbours never overlap and drops are repeatable
+        int spawned = 0;
+        for (ItemStack stack : merged) {
+            if (stack.isEmpty()) {
+                continue;
+            }
+            double angle = spawned * 2.399963229728653d;
+            double speed = spawned == 0 ? 0d : 0.05d;
+            dropItem(level, stack, pos, new Vec3(Math.cos(angle) * speed, 0.2d, Math.sin(angle) * speed));
+            spawned++;
+        }
+        return spawned;
+    }
+
     // ==================== RAYTRACING OPERATIONS ====================
 
     /**
@@ -175,6 +237,17 @@ public final class WorldFunctions {
         return clip(level, new ClipContext(eyePosition, combined, ClipContext.Block.OUTLINE, ClipContext.Fluid.NONE, player));
     }
 
+    /**
+     * Creates a raycaster for casting many rays through the level's voxels, with chunk and section
+     * lookups cached across rays and optional entity hits found in the same pass.
+     *
+     * @param level The level to cast rays in.
+     * @return A new raycaster.
+     */
+    public static VoxelRaycaster voxelRaycaster(Level level) {
+        return VoxelRaycaster.create(level);
+    }
+
     // ==================== LEVEL-BASED SOUND OPERATIONS ====================
 
     /**
@@ -586,11 +659,9 @@ public final class WorldFunctions {
      * @return A list of entities within the radius.
      */
     public static List<Entity> getEntitiesInRadius(Level level, Vec3 center, double radius) {
-        AABB boundingBox = new AABB(
-                vecX(center) - radius, vecY(center) - radius, vecZ(center) - radius,
-                vecX(center) + radius, vecY(center) + radius, vecZ(center) + radius
-        );
-        return entities(level, null, boundingBox, entity -> true);
+        List<Entity> result = new ArrayList<>();
+        forEachEntityInSphere(level, center, radius, result::add);
+        return result;
     }
 
     /**
@@ -604,14 +675,16 @@ public final class WorldFunctions {
      * @return A list of entities of the specified type within the radius.
      */
     public static <T extends Entity> List<T> getEntitiesInRadius(Level level, Vec3 center, double radius, EntityType<T> entityType) {
-        AABB boundingBox = new AABB(
-                vecX(center) - radius, vecY(center) - radius, vecZ(center) - radius,
-                vecX(center) + radius, vecY(center) + radius, vecZ(center) + radius
-        );
-        //? if >=1.15
-        return typedEntities(level, entityType, boundingBox, entity -> true);
-        //? if <1.15
-        /*return (List<T>) (List<?>) level.getEntities(entityType, boundingBox, entity -> true);*/
+        List<T> result = new ArrayList<>();
+        forEachEntityInSphere(level, center, radius, entity -> {
+            if (entity.getType() == entityType) {
+                @SuppressWarnings("unchecked")
+                T typed = (T) entity;
+                result.add(typed);
+            }
+            return true;
+        });
+        return result;
     }
 
     /**
@@ -624,11 +697,14 @@ public final class WorldFunctions {
      * @return A list of entities matching the predicate within the radius.
      */
     public static List<Entity> getEntitiesInRadius(Level level, Vec3 center, double radius, java.util.function.Predicate<Entity> predicate) {
-        AABB boundingBox = new AABB(
-                vecX(center) - radius, vecY(center) - radius, vecZ(center) - radius,
-                vecX(center) + radius, vecY(center) + radius, vecZ(center) + radius
-        );
-        return entities(level, null, boundingBox, predicate);
+        List<Entity> result = new ArrayList<>();
+        forEachEntityInSphere(level, center, radius, entity -> {
+            if (predicate.test(entity)) {
+                result.add(entity);
+            }
+            return true;
+        });
+        return result;
     }
 
     /**
@@ -673,10 +749,204 @@ public final class WorldFunctions {
      */
     @Nullable
     public static Entity getNearestEntity(Level level, Vec3 center, double radius) {
-        List<Entity> entities = getEntitiesInRadius(level, center, radius);
-        return entities.stream()
-                .min(Comparator.comparingDouble(entity -> distanceSquaredBetween(entityPosition(entity), center)))
-                .orElse(null);
+        return getNearestEntity(level, center, radius, Entity.class, entity -> true);
+    }
+
+    /**
+     * Gets the nearest entity of a class matching a filter within a specified radius.
+     * The search walks outward in rings, 16 blocks thick at first and growing by a quarter each step
+     * further out, and stops as soon as no farther ring can contain a closer entity, so nearby hits
+     * are found without scanning the whole radius. The radius is clamped to the world border's farthest
+     * corner, allowing 4096 blocks of height, so entities beyond that are not found.
+     *
+     * @param level The level to search in.
+     * @param center The center position to search around.
+     * @param radius The search radius.
+     * @param type The entity class to search for.
+     * @param filter The filter entities must match. Only called for entities closer than the best so far.
+     * @param <T> The entity type.
+     * @return The nearest matching entity, or null if none found.
+     * @throws IllegalArgumentException if the radius is negative, infinite or NaN.
+     */
+    @Nullable
+    public static <T extends Entity> T getNearestEntity(Level level, Vec3 center, double radius, Class<T> type, java.util.function.Predicate<? super T> filter) {
+        NearestSearch<T> search = new NearestSearch<>(level, center, radius, 1, filter);
+        search.run(level, type);
+        return search.size == 0 ? null : type.cast(search.entities[0]);
+    }
+
+    /**
+     * Finds the {@code count} nearest entities matching a filter within a specified radius.
+     *
+     * @param level The level to search in.
+     * @param center The center position to search around.
+     * @param radius The search radius.
+     * @param count The maximum number of entities to find.
+     * @param filter The filter entities must match.
+     * @param output The list to fill, nearest first. It is cleared first.
+     * @return The number of entities found.
+     */
+    public static int getNearestEntities(Level level, Vec3 center, double radius, int count, java.util.function.Predicate<? super Entity> filter, List<? super Entity> output) {
+        return getNearestEntities(level, center, radius, count, Entity.class, filter, output);
+    }
+
+    /**
+     * Finds the {@code count} nearest entities of a class matching a filter within a specified radius.
+     * Candidates are kept in a bounded max-heap, so the search can stop as soon as no farther ring
+     * can beat the current {@code count}-th nearest entity. The radius is clamped like
+     * {@link #getNearestEntity(Level, Vec3, double, Class, java.util.function.Predicate)}'s.
+     *
+     * @param level The level to search in.
+     * @param center The center position to search around.
+     * @param radius The search radius.
+     * @param count The maximum number of entities to find.
+     * @param type The entity class to search for.
+     * @param filter The filter entities must match.
+     * @param output The list to fill, nearest first. It is cleared first.
+     * @param <T> The entity type.
+     * @return The number of entities found.
+     * @throws IllegalArgumentException if the radius is negative, infinite or NaN.
+     */
+    public static <T extends Entity> int getNearestEntities(Level level, Vec3 center, double radius, int count, Class<T> type, java.util.function.Predicate<? super T> filter, List<? super T> output) {
+        output.clear();
+        if (count <= 0) return 0;
+        NearestSearch<T> search = new NearestSearch<>(level, center, radius, count, filter);
+        search.run(level, type);
+        search.drainSorted(type, output);
+        return output.size();
+    }
+
+    /**
+     * Visits every entity inside a sphere without building a result list.
+     * Entities in the corners of the sphere's bounding box are skipped before the visitor sees them.
+     *
+     * @param level The level to search in.
+     * @param center The center of the sphere.
+     * @param radius The radius of the sphere.
+     * @param visitor Called for each entity inside the sphere. Return {@code false} to stop the search.
+     * @return {@code true} if the search completed, {@code false} if the visitor stopped it early.
+     */
+    public static boolean forEachEntityInSphere(Level level, Vec3 center, double radius, java.util.function.Predicate<? super Entity> visitor) {
+        return visitEntities(level, Entity.class, EntityVisit.sphere(center, radius, visitor));
+    }
+
+    /**
+     * Visits every entity of a class inside a sphere without building a result list.
+     * Entities of other classes are skipped before any distance checks.
+     *
+     * @param level The level to search in.
+     * @param center The center of the sphere.
+     * @param radius The radius of the sphere.
+     * @param type The entity class to search for.
+     * @param visitor Called for each matching entity inside the sphere. Return {@code false} to stop the search.
+     * @param <T> The entity type.
+     * @return {@code true} if the search completed, {@code false} if the visitor stopped it early.
+     */
+    public static <T extends Entity> boolean forEachEntityInSphere(Level level, Vec3 center, double radius, Class<T> type, java.util.function.Predicate<? super T> visitor) {
+        return visitEntities(level, type, EntityVisit.sphere(center, radius, visitor));
+    }
+
+    /**
+     * Collects every entity inside a sphere into a reusable list.
+     * The list is cleared first, so the same list can be passed in every tick.
+     *
+     * @param level The level to search in.
+     * @param center The center of the sphere.
+     * @param radius The radius of the sphere.
+     * @param output The list to fill.
+     * @return The number of entities found.
+     */
+    public static int collectEntitiesInSphere(Level level, Vec3 center, double radius, List<? super Entity> output) {
+        output.clear();
+        forEachEntityInSphere(level, center, radius, output::add);
+        return output.size();
+    }
+
+    /**
+     * Collects every entity of a class inside a sphere into a reusable list.
+     * The list is cleared first, so the same list can be passed in every tick.
+     *
+     * @param level The level to search in.
+     * @param center The center of the sphere.
+     * @param radius The radius of the sphere.
+     * @param type The entity class to search for.
+     * @param output The list to fill.
+     * @param <T> The entity type.
+     * @return The number of entities found.
+     */
+    public static <T extends Entity> int collectEntitiesInSphere(Level level, Vec3 center, double radius, Class<T> type, List<? super T> output) {
+        output.clear();
+        forEachEntityInSphere(level, center, radius, type, output::add);
+        return output.size();
+    }
+
+    /**
+     * Visits every entity inside a vertical cylinder without building a result list.
+     * An entity is inside when its horizontal distance to the center is at most {@code radius}
+     * and its height is within {@code halfHeight} of the center.
+     *
+     * @param level The level to search in.
+     * @param center The center of the cylinder.
+     * @param radius The horizontal radius of the cylinder.
+     * @param halfHeight Half the height of the cylinder.
+     * @param visitor Called for each entity inside the cylinder. Return {@code false} to stop the search.
+     * @return {@code true} if the search completed, {@code false} if the visitor stopped it early.
+     */
+    public static boolean forEachEntityInCylinder(Level level, Vec3 center, double radius, double halfHeight, java.util.function.Predicate<? super Entity> visitor) {
+        return visitEntities(level, Entity.class, EntityVisit.cylinder(center, radius, halfHeight, visitor));
+    }
+
+    /**
+     * Visits every entity of a class inside a vertical cylinder without building a result list.
+     * Entities of other classes are skipped before any distance checks.
+     *
+     * @param level The level to search in.
+     * @param center The center of the cylinder.
+     * @param radius The horizontal radius of the cylinder.
+     * @param halfHeight Half the height of the cylinder.
+     * @param type The entity class to search for.
+     * @param visitor Called for each matching entity inside the cylinder. Return {@code false} to stop the search.
+     * @param <T> The entity type.
+     * @return {@code true} if the search completed, {@code false} if the visitor stopped it early.
+     */
+    public static <T extends Entity> boolean forEachEntityInCylinder(Level level, Vec3 center, double radius, double halfHeight, Class<T> type, java.util.function.Predicate<? super T> visitor) {
+        return visitEntities(level, type, EntityVisit.cylinder(center, radius, halfHeight, visitor));
+    }
+
+    /**
+     * Collects every entity inside a vertical cylinder into a reusable list.
+     * The list is cleared first, so the same list can be passed in every tick.
+     *
+     * @param level The level to search in.
+     * @param center The center of the cylinder.
+     * @param radius The horizontal radius of the cylinder.
+     * @param halfHeight Half the height of the cylinder.
+     * @param output The list to fill.
+     * @return The number of entities found.
+     */
+    public static int collectEntitiesInCylinder(Level level, Vec3 center, double radius, double halfHeight, List<? super Entity> output) {
+        output.clear();
+        forEachEntityInCylinder(level, center, radius, halfHeight, output::add);
+        return output.size();
+    }
+
+    /**
+     * Collects every entity of a class inside a vertical cylinder into a reusable list.
+     * The list is cleared first, so the same list can be passed in every tick.
+     *
+     * @param level The level to search in.
+     * @param center The center of the cylinder.
+     * @param radius The horizontal radius of the cylinder.
+     * @param halfHeight Half the height of the cylinder.
+     * @param type The entity class to search for.
+     * @param output The list to fill.
+     * @param <T> The entity type.
+     * @return The number of entities found.
+     */
+    public static <T extends Entity> int collectEntitiesInCylinder(Level level, Vec3 center, double radius, double halfHeight, Class<T> type, List<? super T> output) {
+        output.clear();
+        forEachEntityInCylinder(level, center, radius, halfHeight, type, output::add);
+        return output.size();
     }
 
     // ==================== BIOME UTILITIES ====================
@@ -707,11 +977,9 @@ public final class WorldFunctions {
     //? if <1.18.2
     /*public static Biome getBiomeAtPosition(Level level, Vec3 position) {*/
         //? if >=1.19.4
-        return level.getBiome(BlockPos.containing(position));
-        //? if <1.19.4 && >=1.18.2
+        return biome(level, BlockPos.containing(position));
+        //? if <1.19.4
         /*return biome(level, new BlockPos(position));*/
-        //? if <1.18.2
-        /*return level.getBiome(new BlockPos(position));*/
     }
 
     /**
@@ -725,7 +993,7 @@ public final class WorldFunctions {
         //? if >=1.18.2
         return holderValue(biome(level, position));
         //? if <1.18.2
-        /*return level.getBiome(position);*/
+        /*return biome(level, position);*/
     }
 
     /**
@@ -737,11 +1005,9 @@ public final class WorldFunctions {
      */
     public static Biome getBiomeValueAtPosition(Level level, Vec3 position) {
         //? if >=1.19.4
-        return level.getBiome(BlockPos.containing(position)).value();
-        //? if <1.19.4 && >=1.18.2
-        /*return holderValue(biome(level, new BlockPos(position)));*/
-        //? if <1.18.2
-        /*return level.getBiome(new BlockPos(position));*/
+        return getBiomeValueAtPosition(level, BlockPos.containing(position));
+        //? if <1.19.4
+        /*return getBiomeValueAtPosition(level, new BlockPos(position));*/
     }
 
     //? if >=1.19 {
@@ -754,17 +1020,21 @@ public final class WorldFunctions {
      * @return true when the position is inside a valid matching structure piece.
      */
     public static boolean isInsideStructure(Level level, BlockPos position, ResourceKey<Structure> structure) {
-        if (!(level instanceof ServerLevel serverLevel) || !serverLevel.isLoaded(position)) {
-            return false;
-        }
+        return StructureCache.isInside(level, position, structure);
+    }
 
-        //? if >=1.20.5 {
-        return serverLevel.structureManager()
-                .getStructureWithPieceAt(position, holder -> holder.is(structure))
-                .isValid();
-        //?} else {
-        /*return serverLevel.structureManager().getStructureWithPieceAt(position, structure).isValid();*/
-        //?}
+    /**
+     * Checks whether many positions are inside a generated structure.
+     *
+     * @param level The level to check.
+     * @param packedPositions The {@linkplain BlockPos#asLong packed positions} to test.
+     * @param count How many entries of {@code packedPositions} to test.
+     * @param structure The structure key to match.
+     * @param results Receives whether each position is inside a matching structure piece.
+     * @return The number of positions inside a matching structure piece.
+     */
+    public static int isInsideStructure(Level level, long[] packedPositions, int count, ResourceKey<Structure> structure, boolean[] results) {
+        return StructureCache.isInside(level, packedPositions, count, structure, results);
     }
     //?}
 
@@ -780,11 +1050,11 @@ public final class WorldFunctions {
         //? if >=1.21.2
         return holderValue(biome(level, position)).getPrecipitationAt(position, seaLevel(level)) == precipitation;
         //? if <1.21.2 && >=1.19.4
-        /*return level.getBiome(position).value().getPrecipitationAt(position) == precipitation;*/
+        /*return holderValue(biome(level, position)).getPrecipitationAt(position) == precipitation;*/
         //? if <1.19.4 && >=1.18.2
         /*return precipitation(holderValue(biome(level, position))) == precipitation;*/
         //? if <1.18.2
-        /*return level.getBiome(position).getPrecipitation() == precipitation;*/
+        /*return biome(level, position).getPrecipitation() == precipitation;*/
     }
 
     /**
@@ -802,55 +1072,166 @@ public final class WorldFunctions {
         /*return hasPrecipitation(level, new BlockPos(position), precipitation);*/
     }
 
+    /**
+     * Gets the biomes of every 4x4x4 block quart in a region at once. See {@link BiomeCache#getBiomes}
+     * for the order of the results.
+     *
+     * @param level The level to check.
+     * @param from One corner of the region.
+     * @param to The opposite corner of the region.
+     * @param output The array to fill.
+     * @return The number of entries written.
+     */
+    //? if >=1.18.2
+    public static int getBiomes(Level level, BlockPos from, BlockPos to, Holder<Biome>[] output) {
+    //? if <1.18.2
+    /*public static int getBiomes(Level level, BlockPos from, BlockPos to, Biome[] output) {*/
+        return BiomeCache.getBiomes(level, from, to, output);
+    }
+
+    // ==================== BATCH EDIT OPERATIONS ====================
+
+    /**
+     * Starts a batch of block changes that are applied together, with one neighbor update pass
+     * for the edges of the edit instead of updates for every block. Large batches can be spread
+     * over several ticks with {@link BlockBatch#applyOverTicks(int)}.
+     *
+     * @param level The level to edit.
+     * @return A new, empty batch.
+     */
+    public static BlockBatch batchEdit(Level level) {
+        return BlockBatch.create(level);
+    }
+
+    /**
+     * Starts building a budgeted search for the blocks connected to a position, such as an ore vein.
+     * The found positions can be passed straight to {@link BlockBatch#setAll(long[], int, net.minecraft.world.level.block.state.BlockState)}.
+     *
+     * @param level The level to search.
+     * @param origin The position to start from.
+     * @return A builder for the search.
+     */
+    public static BlockFloodFill.Builder floodFill(Level level, BlockPos origin) {
+        return BlockFloodFill.builder(level, origin);
+    }
+
+    // ==================== REGION SNAPSHOT OPERATIONS ====================
+
+    /**
+     * Captures an immutable, palette-compressed copy of the block states between two corners.
+     * Must be called on the level's thread, but the snapshot can then be read from any thread.
+     * Chunks that are not loaded are skipped rather than loaded.
+     *
+     * @param level The level to copy from.
+     * @param from One corner of the region, inclusive.
+     * @param to The opposite corner of the region, inclusive.
+     * @return The snapshot.
+     */
+    public static RegionSnapshot snapshotRegion(Level level, BlockPos from, BlockPos to) {
+        return RegionSnapshot.capture(level, from, to);
+    }
+
+    // ==================== SHAPED BLOCK ITERATION ====================
+
+    /**
+     * Gets the blocks within a radius of a position, for iterating without allocating a BlockPos per block.
+     *
+     * @param center The center of the sphere.
+     * @param radius The radius in blocks.
+     * @return The blocks in the sphere.
+     */
+    public static BlockShape blocksInSphere(BlockPos center, int radius) {
+        return BlockShape.sphere(center, radius);
+    }
+
+    /**
+     * Gets the blocks in the outer layer of a sphere.
+     *
+     * @param center The center of the sphere.
+     * @param radius The outer radius in blocks.
+     * @param thickness The thickness of the layer in blocks.
+     * @return The blocks in the shell.
+     */
+    public static BlockShape blocksInShell(BlockPos center, int radius, int thickness) {
+        return BlockShape.shell(center, radius, thickness);
+    }
+
+    /**
+     * Gets the blocks in a vertical cylinder around a position.
+     *
+     * @param center The center of the cylinder.
+     * @param radius The horizontal radius in blocks.
+     * @param halfHeight How far the cylinder extends above and below the center.
+     * @return The blocks in the cylinder.
+     */
+    public static BlockShape blocksInCylinder(BlockPos center, int radius, int halfHeight) {
+        return BlockShape.cylinder(center, radius, halfHeight);
+    }
+
+    /**
+     * Gets the blocks in a cube around a position.
+     *
+     * @param center The center of the cube.
+     * @param radius How far the cube extends from the center on each axis.
+     * @return The blocks in the cube.
+     */
+    public static BlockShape blocksInCube(BlockPos center, int radius) {
+        return BlockShape.cube(center, radius);
+    }
+
+    /**
+     * Gets the blocks on a line between two positions.
+     *
+     * @param from The start of the line.
+     * @param to The end of the line.
+     * @return The blocks on the line.
+     */
+    public static BlockShape blocksOnLine(BlockPos from, BlockPos to) {
+        return BlockShape.line(from, to);
+    }
+
     // ==================== BOUNDING BOX OPERATIONS ====================
 
     /**
      * Merges the provided block positions into a collection of bounding boxes
-     * by attempting to combine adjacent positions into larger axis-aligned bounding boxes (AABBs).
+     * by greedily combining adjacent positions into larger axis-aligned bounding boxes (AABBs)
+     * along all three axes. Use {@link BlockBoxMesh} to keep the boxes up to date as positions change.
      *
      * @param positions      The block positions to merge.
      * @param referencePoint The reference point for normalization.
      * @return A collection of merged bounding boxes.
      */
     public static Collection<AABB> mergeBoundingBoxes(Collection<BlockPos> positions, BlockPos referencePoint) {
-        BoundingBoxMerger boxMerger = new BoundingBoxMerger();
-
-        positions.stream()
-                .map(pos -> relativeBlockPos(pos, referencePoint))
-                .sorted()
-                .map(AABB::new)
-                .forEachOrdered(box -> {
-                    // Reset current bounds if we encounter a new x or y coordinate
-                    if (boxMerger.xCoordTracker != aabbMinX(box) || boxMerger.yCoordTracker != aabbMinY(box)) {
-                        boxMerger.currentBounds = null;
+        return BlockBoxMesh.merge(positions, referencePoint);
+    }
+
+    private static void insertInto(Container container, List<ItemStack> stacks) {
+        int size = container.getContainerSize();
+        boolean changed = false;
+        for (ItemStack stack : stacks) {
+            // Top up matching stacks first, then use empty slots
+            for (int pass = 0; pass < 2 && !stack.isEmpty(); pass++) {
+                for (int slot = 0; slot < size && !stack.isEmpty(); slot++) {
+                    ItemStack existing = container.getItem(slot);
+                    if ((pass == 0) == existing.isEmpty() || !container.canPlaceItem(slot, stack)) {
+                        continue;
                     }
-
-                    boxMerger.xCoordTracker = aabbMinX(box);
-                    boxMerger.yCoordTracker = aabbMinY(box);
-
-                    Vec3 center = aabbCenter(box);
-                    boxMerger.currentCenter = center;
-
-                    // Attempt to combine with the current bounds or adjacent boxes
-                    if (boxMerger.currentBounds != null && boxMerger.canCombine(
-                            boxMerger.currentBounds,
-                            box,
-                            center
-                    )) {
-                        return;
-                    }
-
-                    if (boxMerger.tryCombineAdjacent(center, box)) {
-                        return;
+                    int limit = Math.min(container.getMaxStackSize(), stack.getMaxStackSize());
+                    if (existing.isEmpty()) {
+                        container.setItem(slot, stack.split(limit));
+                        changed = true;
+                    } else if (StackFingerprint.isSameItemSameData(existing, stack) && existing.getCount() < limit) {
+                        int moved = Math.min(limit - existing.getCount(), stack.getCount());
+                        existing.grow(moved);
+                        stack.shrink(moved);
+                        changed = true;
                     }
-
-                    // Store as a new bounding box
-                    boxMerger.currentBounds = box;
-                    boxMerger.positionToBox.put(center, box);
-                    boxMerger.boxToPosition.put(box, center);
-                });
-
-        return boxMerger.boxToPosition.keySet();
+                }
+            }
+        }
+        if (changed) {
+            container.setChanged();
+        }
     }
 
     private static long gameTime(Level level) {
@@ -885,14 +1266,6 @@ public final class WorldFunctions {
         return new Vec3(blockX(position) + 0.5D, blockY(position) + 0.5D, blockZ(position) + 0.5D);
     }
 
-    private static BlockPos relativeBlockPos(BlockPos position, BlockPos referencePoint) {
-        return new BlockPos(
-                blockX(position) - blockX(referencePoint),
-                blockY(position) - blockY(referencePoint),
-                blockZ(position) - blockZ(referencePoint)
-        );
-    }
-
     private static Vec3 entityPosition(Entity entity) {
         return WorldCompat.entityPosition(entity);
     }
@@ -923,6 +1296,9 @@ public final class WorldFunctions {
             //? if <1.18.2
             /*SoundEvent sound,*/
                                        SoundSource source, float volume, float pitch) {
+        if (player == null && SoundCoalescer.queue(level, x, y, z, sound, source, volume, pitch)) {
+            return;
+        }
         WorldCompat.playLevelSound(level, player, x, y, z, sound, source, volume, pitch);
     }
 
@@ -961,214 +1337,298 @@ public final class WorldFunctions {
         return WorldCompat.seaLevel(level);
     }
 
-    private static List<Entity> entities(Level level, Entity except, AABB bounds, java.util.function.Predicate<Entity> predicate) {
-        return WorldCompat.entities(level, except, bounds, predicate);
-    }
-
-    private static <T extends Entity> List<T> typedEntities(Level level, EntityType<T> type, AABB bounds, java.util.function.Predicate<Entity> predicate) {
-        return WorldCompat.typedEntities(level, type, bounds, predicate);
+    private static <T extends Entity> boolean visitEntities(Level level, Class<T> type, EntityVisit<T> visit) {
+        if (EntitySpatialHash.isIndexed(level)) {
+            EntitySpatialHash.forEachEntity(level, visit.bounds(), type, visit::accept);
+        } else {
+            level.getEntitiesOfClass(type, visit.bounds(), visit);
+        }
+        return !visit.stopped;
     }
 
     //? if >=1.18.2
     private static Holder<Biome> biome(Level level, BlockPos position) {
     //? if <1.18.2
     /*private static Biome biome(Level level, BlockPos position) {*/
-        return WorldCompat.biome(level, position);
-    }
-
-    private static Vec3 aabbCenter(AABB box) {
-        return new Vec3(
-                (aabbMinX(box) + aabbMaxX(box)) / 2.0D,
-                (aabbMinY(box) + aabbMaxY(box)) / 2.0D,
-                (aabbMinZ(box) + aabbMaxZ(box)) / 2.0D
-        );
-    }
-
-    private static Vec3 subtractVectors(Vec3 first, Vec3 second) {
-        return new Vec3(vecX(first) - vecX(second), vecY(first) - vecY(second), vecZ(first) - vecZ(second));
-    }
-
-    private static Vec3 addVectors(Vec3 first, Vec3 second) {
-        return new Vec3(vecX(first) + vecX(second), vecY(first) + vecY(second), vecZ(first) + vecZ(second));
-    }
-
-    private static AABB mergeAabbs(AABB first, AABB second) {
-        return new AABB(
-                Math.min(aabbMinX(first), aabbMinX(second)),
-                Math.min(aabbMinY(first), aabbMinY(second)),
-                Math.min(aabbMinZ(first), aabbMinZ(second)),
-                Math.max(aabbMaxX(first), aabbMaxX(second)),
-                Math.max(aabbMaxY(first), aabbMaxY(second)),
-                Math.max(aabbMaxZ(first), aabbMaxZ(second))
-        );
-    }
-
-    private static double aabbMinX(AABB box) {
-        return WorldCompat.aabbMinX(box);
-    }
-
-    private static double aabbMinY(AABB box) {
-        return WorldCompat.aabbMinY(box);
+        return BiomeCache.isEnabled() ? BiomeCache.getBiome(level, position) : WorldCompat.biome(level, position);
     }
 
-    private static double aabbMinZ(AABB box) {
-        return WorldCompat.aabbMinZ(box);
-    }
-
-    private static double aabbMaxX(AABB box) {
-        return WorldCompat.aabbMaxX(box);
-    }
-
-    private static double aabbMaxY(AABB box) {
-        return WorldCompat.aabbMaxY(box);
-    }
-
-    private static double aabbMaxZ(AABB box) {
-        return WorldCompat.aabbMaxZ(box);
-    }
-
-    private static String vectorKey(Vec3 vector) {
-        return vectorKey((int) vecX(vector), (int) vecY(vector), (int) vecZ(vector));
-    }
+    // ==================== INTERNAL ENTITY VISITOR CLASS ====================
 
-    private static String vectorKey(Vec3i vector) {
-        return vectorKey(vec3iX(vector), vec3iY(vector), vec3iZ(vector));
-    }
-
-    private static String vectorKey(int x, int y, int z) {
-        return x + "," + y + "," + z;
-    }
-
-    private static Vec3 directionVector(Direction direction) {
-        Vec3i normal = directionNormal(direction);
-        return new Vec3(vec3iX(normal), vec3iY(normal), vec3iZ(normal));
-    }
-
-    private static int vec3iX(Vec3i vector) {
-        return WorldCompat.vec3iX(vector);
-    }
+    /**
+     * Shape test and early-stop state for entity searches. Used as the search predicate, it always
+     * rejects, so the underlying entity lookup never grows its result list.
+     */
+    private static final class EntityVisit<T extends Entity> implements java.util.function.Predicate<T> {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double radius;
+        private final double radiusSqr;
+        private final double halfHeight;
+        private final boolean cylinder;
+        private final java.util.function.Predicate<? super T> visitor;
+        private boolean stopped;
+
+        private EntityVisit(Vec3 center, double radius, double halfHeight, boolean cylinder, java.util.function.Predicate<? super T> visitor) {
+            this.x = vecX(center);
+            this.y = vecY(center);
+            this.z = vecZ(center);
+            this.radius = radius;
+            this.radiusSqr = radius * radius;
+            this.halfHeight = halfHeight;
+            this.cylinder = cylinder;
+            this.visitor = visitor;
+        }
 
-    private static int vec3iY(Vec3i vector) {
-        return WorldCompat.vec3iY(vector);
-    }
+        private static <T extends Entity> EntityVisit<T> sphere(Vec3 center, double radius, java.util.function.Predicate<? super T> visitor) {
+            return new EntityVisit<>(center, radius, radius, false, visitor);
+        }
 
-    private static int vec3iZ(Vec3i vector) {
-        return WorldCompat.vec3iZ(vector);
-    }
+        private static <T extends Entity> EntityVisit<T> cylinder(Vec3 center, double radius, double halfHeight, java.util.function.Predicate<? super T> visitor) {
+            return new EntityVisit<>(center, radius, halfHeight, true, visitor);
+        }
 
-    private static Vec3i directionNormal(Direction direction) {
-        return WorldCompat.directionNormal(direction);
-    }
+        private AABB bounds() {
+            return new AABB(x - radius, y - halfHeight, z - radius, x + radius, y + halfHeight, z + radius);
+        }
 
-    private static Direction directionOpposite(Direction direction) {
-        return WorldCompat.directionOpposite(direction);
-    }
+        private boolean contains(Entity entity) {
+            Vec3 position = entityPosition(entity);
+            double dx = vecX(position) - x;
+            double dy = vecY(position) - y;
+            double dz = vecZ(position) - z;
+            if (cylinder) {
+                return dx * dx + dz * dz <= radiusSqr && Math.abs(dy) <= halfHeight;
+            }
+            return dx * dx + dy * dy + dz * dz <= radiusSqr;
+        }
 
-    private static Direction.Axis directionAxis(Direction direction) {
-        return WorldCompat.directionAxis(direction);
-    }
+        @Override
+        public boolean test(T entity) {
+            if (!stopped && contains(entity) && !visitor.test(entity)) {
+                stopped = true;
+            }
+            return false;
+        }
 
-    private static Direction.AxisDirection directionAxisDirection(Direction direction) {
-        return WorldCompat.directionAxisDirection(direction);
+        private boolean accept(T entity) {
+            test(entity);
+            return !stopped;
+        }
     }
 
-    // ==================== INTERNAL BOUNDING BOX MERGER CLASS ====================
+    // ==================== INTERNAL NEAREST ENTITY SEARCH CLASS ====================
 
     /**
-     * Internal helper class for merging bounding boxes efficiently.
+     * Ring-by-ring nearest entity search holding the best candidates in a bounded max-heap.
+     * Each ring is queried as up to six slabs that exactly tile the shell around the previous ring,
+     * and entities are only accepted in the slab containing their position, so none is seen twice.
+     * Rings grow geometrically past the first few, so even a search across the whole world takes a
+     * bounded number of steps.
      */
-    private static final class BoundingBoxMerger {
-        private static final Map<String, Direction> DIRECTION_LOOKUP = Arrays.stream(Direction.values())
-                .collect(Collectors.toMap(dir -> vectorKey(directionNormal(dir)),
-                        dir -> dir,
-                        (a, b) -> {
-                            throw new IllegalStateException("Duplicate direction detected.");
-                        },
-                        HashMap::new
-                ));
-
-        private final Map<Vec3, AABB> positionToBox = new HashMap<>();
-        private final Multimap<AABB, Vec3> boxToPosition = HashMultimap.create();
-        private double xCoordTracker = Double.NEGATIVE_INFINITY;
-        private double yCoordTracker = Double.NEGATIVE_INFINITY;
-        private Vec3 currentCenter = null;
-        private AABB currentBounds = null;
-
+    private static final class NearestSearch<T extends Entity> implements java.util.function.Predicate<T> {
+        private static final int RING_SIZE = 16;
         /**
-         * Determines if two bounding boxes are aligned along a given direction.
+         * Height allowed for beyond the center's distance from y 0 when clamping the radius.
          */
-        private static boolean isAligned(AABB first, AABB second, Direction direction) {
-            return getAxisValue(first, direction) == getAxisValue(
-                    second,
-                    directionOpposite(direction)
-            ) && Arrays.stream(Direction.values())
-                    .filter(d -> directionAxis(d) != directionAxis(direction))
-                    .allMatch(d -> getAxisValue(first, d) == getAxisValue(second, d));
+        private static final double MAX_HEIGHT = 4096D;
+
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double radius;
+        private final double radiusSqr;
+        private final java.util.function.Predicate<? super T> filter;
+        private final Entity[] entities;
+        private final double[] distances;
+        private int size;
+        private double slabMinX;
+        private double slabMinY;
+        private double slabMinZ;
+        private double slabMaxX;
+        private double slabMaxY;
+        private double slabMaxZ;
+
+        private NearestSearch(Level level, Vec3 center, double radius, int count, java.util.function.Predicate<? super T> filter) {
+            if (!(radius >= 0D) || Double.isInfinite(radius)) {
+                throw new IllegalArgumentException("radius must be finite and non-negative, got " + radius);
+            }
+            this.x = vecX(center);
+            this.y = vecY(center);
+            this.z = vecZ(center);
+
+            // No entity in the world is farther than the border's farthest corner
+            net.minecraft.world.level.border.WorldBorder border = level.getWorldBorder();
+            double dx = Math.max(Math.abs(x - border.getMinX()), Math.abs(border.getMaxX() - x));
+            double dy = Math.abs(y) + MAX_HEIGHT;
+            double dz = Math.max(Math.abs(z - border.getMinZ()), Math.abs(border.getMaxZ() - z));
+            radius = Math.min(radius, Math.sqrt(dx * dx + dy * dy + dz * dz));
+
+            this.radius = radius;
+            this.radiusSqr = radius * radius;
+            this.filter = filter;
+            this.entities = new Entity[count];
+            this.distances = new double[count];
         }
 
-        /**
-         * Retrieves the value of a bounding box along a specified direction.
-         */
-        private static double getAxisValue(AABB box, Direction direction) {
-            Direction.Axis axis = directionAxis(direction);
-            boolean positive = directionAxisDirection(direction) == Direction.AxisDirection.POSITIVE;
-            return switch (axis) {
-                case X -> positive ? aabbMaxX(box) : aabbMinX(box);
-                case Y -> positive ? aabbMaxY(box) : aabbMinY(box);
-                case Z -> positive ? aabbMaxZ(box) : aabbMinZ(box);
-                default -> throw new IllegalStateException("Unknown direction axis: " + axis);
-            };
+        private void run(Level level, Class<T> type) {
+            int cellX = Math.floorDiv((int) Math.floor(x), RING_SIZE);
+            int cellY = Math.floorDiv((int) Math.floor(y), RING_SIZE);
+            int cellZ = Math.floorDiv((int) Math.floor(z), RING_SIZE);
+
+            // The cube searched so far spans extent cells on either side of the center's cell
+            int previous = 0;
+            for (int extent = 1; ; extent += Math.max(1, extent >> 2)) {
+                double minX = (double) (cellX - extent + 1) * RING_SIZE;
+                double minY = (double) (cellY - extent + 1) * RING_SIZE;
+                double minZ = (double) (cellZ - extent + 1) * RING_SIZE;
+                double maxX = (double) (cellX + extent) * RING_SIZE;
+                double maxY = (double) (cellY + extent) * RING_SIZE;
+                double maxZ = (double) (cellZ + extent) * RING_SIZE;
+
+                if (previous == 0) {
+                    query(level, type, minX, minY, minZ, maxX, maxY, maxZ);
+                } else {
+                    double innerMinX = (double) (cellX - previous + 1) * RING_SIZE;
+                    double innerMinY = (double) (cellY - previous + 1) * RING_SIZE;
+                    double innerMinZ = (double) (cellZ - previous + 1) * RING_SIZE;
+                    double innerMaxX = (double) (cellX + previous) * RING_SIZE;
+                    double innerMaxY = (double) (cellY + previous) * RING_SIZE;
+                    double innerMaxZ = (double) (cellZ + previous) * RING_SIZE;
+                    query(level, type, minX, minY, minZ, maxX, innerMinY, maxZ);
+                    query(level, type, minX, innerMaxY, minZ, maxX, maxY, maxZ);
+                    query(level, type, minX, innerMinY, minZ, innerMinX, innerMaxY, maxZ);
+                    query(level, type, innerMaxX, innerMinY, minZ, maxX, innerMaxY, maxZ);
+                    query(level, type, innerMinX, innerMinY, minZ, innerMaxX, innerMaxY, innerMinZ);
+                    query(level, type, innerMinX, innerMinY, innerMaxZ, innerMaxX, innerMaxY, maxZ);
+                }
+                previous = extent;
+
+                // Anything not seen yet lies outside this cube, at least this far away
+                double reach = Math.min(
+                        Math.min(Math.min(x - minX, maxX - x), Math.min(y - minY, maxY - y)),
+                        Math.min(z - minZ, maxZ - z)
+                );
+                if (reach >= radius || (size == entities.length && distances[0] <= reach * reach)) {
+                    return;
+                }
+            }
         }
 
-        /**
-         * Converts a vector into a direction based on its coordinates.
-         */
-        private static Direction directionFromVector(Vec3 vector) {
-            return DIRECTION_LOOKUP.get(vectorKey((int) vecX(vector), (int) vecY(vector), (int) vecZ(vector)));
-        }
+        private void query(Level level, Class<T> type, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            double clipMinX = Math.max(minX, x - radius);
+            double clipMinY = Math.max(minY, y - radius);
+            double clipMinZ = Math.max(minZ, z - radius);
+            double clipMaxX = Math.min(maxX, x + radius);
+            double clipMaxY = Math.min(maxY, y + radius);
+            double clipMaxZ = Math.min(maxZ, z + radius);
+            if (clipMinX > clipMaxX || clipMinY > clipMaxY || clipMinZ > clipMaxZ) {
+                return;
+            }
 
-        /**
-         * Attempts to merge the current bounding box with its neighboring bounding box.
-         */
-        private boolean canCombine(AABB current, AABB neighbor, Vec3 center) {
-            Direction direction = directionFromVector(subtractVectors(center, aabbCenter(current)));
-            return direction != null && isAligned(current, neighbor, direction) && mergeBoxes(
-                    current,
-                    neighbor,
-                    center
-            );
+            slabMinX = minX;
+            slabMinY = minY;
+            slabMinZ = minZ;
+            slabMaxX = maxX;
+            slabMaxY = maxY;
+            slabMaxZ = maxZ;
+            AABB bounds = new AABB(clipMinX, clipMinY, clipMinZ, clipMaxX, clipMaxY, clipMaxZ);
+            if (EntitySpatialHash.isIndexed(level)) {
+                EntitySpatialHash.forEachEntity(level, bounds, type, this::accept);
+            } else {
+                level.getEntitiesOfClass(type, bounds, this);
+            }
         }
 
-        /**
-         * Attempts to merge the provided bounding box with any neighboring bounding boxes.
-         */
-        private boolean tryCombineAdjacent(Vec3 center, AABB box) {
-            for (Direction direction : Direction.values()) {
-                Vec3 adjacentCenter = addVectors(center, directionVector(direction));
-                AABB adjacentBox = positionToBox.get(adjacentCenter);
+        @Override
+        public boolean test(T entity) {
+            Vec3 position = entityPosition(entity);
+            double px = vecX(position);
+            double py = vecY(position);
+            double pz = vecZ(position);
+            if (px < slabMinX || px >= slabMaxX || py < slabMinY || py >= slabMaxY || pz < slabMinZ || pz >= slabMaxZ) {
+                return false;
+            }
 
-                if (adjacentBox != null && isAligned(box, adjacentBox, direction)) {
-                    return mergeBoxes(adjacentBox, box, center);
-                }
+            double dx = px - x;
+            double dy = py - y;
+            double dz = pz - z;
+            double distanceSqr = dx * dx + dy * dy + dz * dz;
+            if (distanceSqr > radiusSqr || (size == entities.length && distanceSqr >= distances[0])) {
+                return false;
+            }
+            if (!filter.test(entity)) {
+                return false;
+            }
+
+            if (size == entities.length) {
+                entities[0] = entity;
+                distances[0] = distanceSqr;
+                siftDown(0, size);
+            } else {
+                entities[size] = entity;
+                distances[size] = distanceSqr;
+                siftUp(size++);
             }
             return false;
         }
 
         /**
-         * Merges two bounding boxes and updates the necessary mappings.
+         * Heap-sorts the candidates in place and adds them to {@code output}, nearest first.
          */
-        private boolean mergeBoxes(AABB source, AABB target, Vec3 center) {
-            AABB expanded = mergeAabbs(source, target);
+        private void drainSorted(Class<T> type, List<? super T> output) {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            for (int i = 0; i < size; i++) {
+                output.add(type.cast(entities[i]));
+            }
+        }
 
-            Set<Vec3> mergedPositions = new HashSet<>(boxToPosition.removeAll(source));
-            mergedPositions.forEach(v -> positionToBox.put(v, expanded));
+        private boolean accept(T entity) {
+            test(entity);
+            return true;
+        }
 
-            boxToPosition.putAll(expanded, mergedPositions);
-            positionToBox.put(center, expanded);
-            boxToPosition.put(expanded, center);
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (distances[parent] >= distances[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
 
-            currentBounds = expanded;
-            return true;
+        private void siftDown(int index, int length) {
+            while (true) {
+                int largest = index;
+                int left = index * 2 + 1;
+                int right = left + 1;
+                if (left < length && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < length && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int first, int second) {
+            Entity entity = entities[first];
+            entities[first] = entities[second];
+            entities[second] = entity;
+            double distance = distances[first];
+            distances[first] = distances[second];
+            distances[second] = distance;
         }
     }
 }
@@ -0,0 +1,127 @@
+package com.iamkaf.amber.api.inventory.v1;
+
+import com.iamkaf.amber.compat.ItemCompat;
+//? if >=1.18.2
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.level.ItemLike;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * An item filter resolved ahead of time into a set of item raw ids, so matching a stack is a bit test.
+ * <p>
+ * Testing a stack against a tag or an ingredient resolves holders and tag contents on every call. A compiled
+ * matcher tests every registered item once, keeps the matching ids in a bitset and rebuilds it after tags are
+ * reloaded, as tracked by {@link ReloadGeneration}. Ingredients may also look at a stack's data, so stacks
+ * whose item matches an ingredient are still tested against it; {@link #and(Predicate)} adds a stack test of
+ * your own in the same way. Matchers are safe to share between threads.
+ *
+ * <pre>
+ * private static final CompiledMatcher LOGS = CompiledMatcher.of(ItemTags.LOGS);
+ *
+ * if (ItemFunctions.has(player.getInventory(), LOGS, 4)) { ... }
+ * </pre>
+ */
+public final class CompiledMatcher implements Predicate<ItemStack> {
+    private final Predicate<ItemStack> source;
+    private final @Nullable Predicate<ItemStack> stackFilter;
+    private volatile Compiled compiled;
+
+    private CompiledMatcher(Predicate<ItemStack> source, @Nullable Predicate<ItemStack> stackFilter) {
+        this.source = source;
+        this.stackFilter = stackFilter;
+    }
+
+    //? if >=1.18.2 {
+    /**
+     * Compiles a matcher for the items in a tag.
+     */
+    public static CompiledMatcher of(TagKey<Item> tag) {
+        return new CompiledMatcher(stack -> stack.is(tag), null);
+    }
+    //?}
+
+    /**
+     * Compiles a matcher for the items an ingredient accepts. Stacks of those items are still tested against
+     * the ingredient, in case it looks at more than the item. Items are found by testing a default stack of each,
+     * so for ingredients that only accept stacks with particular data, use {@link #of(ItemLike...)} with the
+     * ingredient as an {@linkplain #and(Predicate) extra test} instead.
+     */
+    public static CompiledMatcher of(Ingredient ingredient) {
+        return new CompiledMatcher(ingredient, ingredient);
+    }
+
+    /**
+     * Compiles a matcher for a fixed set of items.
+     */
+    public static CompiledMatcher of(ItemLike... items) {
+        BitSet ids = new BitSet();
+        for (ItemLike item : items) {
+            ids.set(Item.getId(ItemCompat.itemLikeItem(item)));
+        }
+        return new CompiledMatcher(stack -> ids.get(Item.getId(ItemCompat.stackItem(stack))), null);
+    }
+
+    /**
+     * Returns a matcher that also requires stacks to pass {@code filter}, such as a check on their components.
+     * The filter is only called for stacks whose item matches.
+     */
+    public CompiledMatcher and(Predicate<ItemStack> filter) {
+        return new CompiledMatcher(source, stackFilter == null ? filter : stackFilter.and(filter));
+    }
+
+    /**
+     * Checks whether a stack matches.
+     */
+    @Override
+    public boolean test(ItemStack stack) {
+        if (stack.isEmpty() || !matches(ItemCompat.stackItem(stack))) {
+            return false;
+        }
+        return stackFilter == null || stackFilter.test(stack);
+    }
+
+    /**
+     * Checks whether an item matches, ignoring any stack tests.
+     */
+    public boolean matches(Item item) {
+        return items().get(Item.getId(item));
+    }
+
+    /**
+     * Gets the raw ids of the matching items. The returned set must not be modified.
+     */
+    public BitSet items() {
+        int generation = ReloadGeneration.current();
+        Compiled current = compiled;
+        if (current == null || current.generation != generation) {
+            current = new Compiled(generation, compile());
+            compiled = current;
+        }
+        return current.ids;
+    }
+
+    private BitSet compile() {
+        BitSet ids = new BitSet();
+        // Raw ids are dense, and looking up an id past the end gives air
+        for (int id = 1; ; id++) {
+            Item item = Item.byId(id);
+            if (item == Items.AIR) {
+                break;
+            }
+            if (source.test(new ItemStack(item))) {
+                ids.set(id);
+            }
+        }
+        return ids;
+    }
+
+    private record Compiled(int generation, BitSet ids) {
+    }
+}
@@ -0,0 +1,307 @@
+package com.iamkaf.amber.api.inventory.v1;
+
+import com.iamkaf.amber.api.event.v1.events.common.PlayerEvents;
+import com.iamkaf.amber.compat.ItemCompat;
+import com.iamkaf.amber.compat.PlayerCompat;
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+//? if >=1.18.2
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ItemLike;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An opt-in index of what an {@link Inventory} holds: the total count of each item and the slots it is in.
+ * <p>
+ * Once {@linkplain #attach(Inventory) attached}, {@link com.iamkaf.amber.api.functions.v1.ItemFunctions#has}
+ * and {@link com.iamkaf.amber.api.functions.v1.ItemFunctions#consumeIfAvailable} answer item and tag queries
+ * from the index instead of testing every slot. The index trusts itself until the inventory reports a change
+ * or the game time moves on, then compares each slot's stack and count with what it last saw and updates only
+ * the slots that differ. Code that edits stacks in place without marking the inventory changed should call
+ * {@link #invalidate()} if it queries the index again in the same tick.
+ * <p>
+ * An index must only be used from the thread that owns its inventory.
+ */
+public final class InventoryIndex {
+    private static final Map<Inventory, InventoryIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+
+    // Weak, so the index does not keep its own key in INDEXES alive
+    private final WeakReference<Inventory> inventory;
+    private final Reference2IntOpenHashMap<Item> totals = new Reference2IntOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<Item, BitSet> slots = new Reference2ObjectOpenHashMap<>();
+    private ItemStack[] seenStacks = new ItemStack[0];
+    private Item[] seenItems = new Item[0];
+    private int[] seenCounts = new int[0];
+    private boolean valid;
+    private int syncedChanges;
+    private long syncedTime;
+
+    private InventoryIndex(Inventory inventory) {
+        this.inventory = new WeakReference<>(inventory);
+    }
+
+    /**
+     * Attaches an index to an inventory, or returns the one already attached.
+     *
+     * @param inventory the inventory to index
+     * @return the index
+     */
+    public static InventoryIndex attach(Inventory inventory) {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            PlayerEvents.PLAYER_LEAVE.register(player -> detach(PlayerCompat.playerInventory(player)));
+        }
+        return INDEXES.computeIfAbsent(inventory, InventoryIndex::new);
+    }
+
+    /**
+     * Removes the index attached to an inventory, if any. Indexes are removed automatically when their
+     * player leaves the server.
+     */
+    public static void detach(Inventory inventory) {
+        INDEXES.remove(inventory);
+    }
+
+    /**
+     * Gets the index attached to an inventory.
+     *
+     * @return the index, or {@code null} if none is attached
+     */
+    public static @Nullable InventoryIndex get(Inventory inventory) {
+        return INDEXES.isEmpty() ? null : INDEXES.get(inventory);
+    }
+
+    /**
+     * Makes the next query compare every slot again, for use after editing stacks in place.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Gets the total count of an item across all slots.
+     */
+    public int count(ItemLike item) {
+        sync();
+        return totals.getInt(ItemCompat.itemLikeItem(item));
+    }
+
+    /**
+     * Checks whether the inventory holds at least {@code amount} of an item, across all slots.
+     */
+    public boolean has(ItemLike item, int amount) {
+        return count(item) >= amount;
+    }
+
+    /**
+     * Checks whether the inventory holds every listed amount at once, each across all slots.
+     *
+     * @param items   the items to check
+     * @param amounts the amount needed of the item at the same index
+     * @return {@code true} if every amount is available
+     */
+    public boolean hasAll(ItemLike[] items, int[] amounts) {
+        if (items.length != amounts.length) {
+            throw new IllegalArgumentException("items and amounts must have the same length");
+        }
+        sync();
+        // The same item may be listed more than once
+        Reference2IntOpenHashMap<Item> needed = new Reference2IntOpenHashMap<>(items.length);
+        for (int i = 0; i < items.length; i++) {
+            Item item = ItemCompat.itemLikeItem(items[i]);
+            int total = needed.addTo(item, amounts[i]) + amounts[i];
+            if (totals.getInt(item) < total) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the lowest slot holding an item with at least {@code minCount} in its stack.
+     *
+     * @return the slot, or -1 if there is none
+     */
+    public int firstSlot(ItemLike item, int minCount) {
+        sync();
+        return firstSlot(ItemCompat.itemLikeItem(item), minCount);
+    }
+
+    //? if >=1.18.2 {
+    /**
+     * Gets the total count of all items in a tag, across all slots.
+     */
+    public int count(TagKey<Item> tag) {
+        sync();
+        int count = 0;
+        for (Reference2ObjectMap.Entry<Item, BitSet> entry : slots.reference2ObjectEntrySet()) {
+            if (representative(entry.getValue()).is(tag)) {
+                count += totals.getInt(entry.getKey());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the lowest slot holding an item in a tag with at least {@code minCount} in its stack.
+     *
+     * @return the slot, or -1 if there is none
+     */
+    public int firstSlot(TagKey<Item> tag, int minCount) {
+        sync();
+        int first = -1;
+        for (Reference2ObjectMap.Entry<Item, BitSet> entry : slots.reference2ObjectEntrySet()) {
+            if (!representative(entry.getValue()).is(tag)) {
+                continue;
+            }
+            int slot = firstSlot(entry.getKey(), minCount);
+            if (slot >= 0 && (first < 0 || slot < first)) {
+                first = slot;
+            }
+        }
+        return first;
+    }
+    //?}
+
+    /**
+     * Gets the total count of all items a matcher accepts, across all slots.
+     */
+    public int count(CompiledMatcher matcher) {
+        sync();
+        int count = 0;
+        for (Reference2ObjectMap.Entry<Item, BitSet> entry : slots.reference2ObjectEntrySet()) {
+            if (!matcher.matches(entry.getKey())) {
+                continue;
+            }
+            BitSet itemSlots = entry.getValue();
+            for (int slot = itemSlots.nextSetBit(0); slot >= 0; slot = itemSlots.nextSetBit(slot + 1)) {
+                if (matcher.test(seenStacks[slot])) {
+                    count += seenCounts[slot];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the lowest slot holding an item a matcher accepts with at least {@code minCount} in its stack.
+     *
+     * @return the slot, or -1 if there is none
+     */
+    public int firstSlot(CompiledMatcher matcher, int minCount) {
+        sync();
+        int first = -1;
+        for (Reference2ObjectMap.Entry<Item, BitSet> entry : slots.reference2ObjectEntrySet()) {
+            if (!matcher.matches(entry.getKey())) {
+                continue;
+            }
+            BitSet itemSlots = entry.getValue();
+            for (int slot = itemSlots.nextSetBit(0); slot >= 0; slot = itemSlots.nextSetBit(slot + 1)) {
+                if (first >= 0 && slot >= first) {
+                    break;
+                }
+                if (seenCounts[slot] >= minCount && matcher.test(seenStacks[slot])) {
+                    first = slot;
+                    break;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Gets the number of distinct items in the inventory.
+     */
+    public int distinctItems() {
+        sync();
+        return slots.size();
+    }
+
+    private int firstSlot(Item item, int minCount) {
+        BitSet itemSlots = slots.get(item);
+        if (itemSlots == null) {
+            return -1;
+        }
+        for (int slot = itemSlots.nextSetBit(0); slot >= 0; slot = itemSlots.nextSetBit(slot + 1)) {
+            if (seenCounts[slot] >= minCount) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private ItemStack representative(BitSet itemSlots) {
+        return seenStacks[itemSlots.nextSetBit(0)];
+    }
+
+    private void sync() {
+        Inventory inventory = this.inventory.get();
+        if (inventory == null) {
+            return;
+        }
+        int changes = inventory.getTimesChanged();
+        //? if >=1.20
+        long time = WorldCompat.gameTime(inventory.player.level());
+        //? if <1.20
+        /*long time = WorldCompat.gameTime(inventory.player.level);*/
+        if (valid && changes == syncedChanges && time == syncedTime) {
+            return;
+        }
+
+        int size = ItemCompat.inventorySize(inventory);
+        if (size != seenStacks.length) {
+            seenStacks = new ItemStack[size];
+            seenItems = new Item[size];
+            seenCounts = new int[size];
+            totals.clear();
+            slots.clear();
+        }
+        for (int slot = 0; slot < size; slot++) {
+            ItemStack stack = ItemCompat.inventoryItem(inventory, slot);
+            Item item = stack.isEmpty() ? null : ItemCompat.stackItem(stack);
+            int count = item == null ? 0 : ItemCompat.stackCount(stack);
+            if (stack == seenStacks[slot] && item == seenItems[slot] && count == seenCounts[slot]) {
+                continue;
+            }
+            remove(slot);
+            seenStacks[slot] = stack;
+            seenItems[slot] = item;
+            seenCounts[slot] = count;
+            if (item != null) {
+                totals.addTo(item, count);
+                slots.computeIfAbsent(item, key -> new BitSet()).set(slot);
+            }
+        }
+
+        valid = true;
+        syncedChanges = changes;
+        syncedTime = time;
+    }
+
+    private void remove(int slot) {
+        Item item = seenItems[slot];
+        if (item == null) {
+            return;
+        }
+        if (totals.addTo(item, -seenCounts[slot]) == seenCounts[slot]) {
+            totals.removeInt(item);
+        }
+        BitSet itemSlots = slots.get(item);
+        itemSlots.clear(slot);
+        if (itemSlots.isEmpty()) {
+            slots.remove(item);
+        }
+    }
+}
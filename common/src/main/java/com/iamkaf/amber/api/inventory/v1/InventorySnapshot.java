@@ -0,0 +1,180 @@
+package com.iamkaf.amber.api.inventory.v1;
+
+import com.iamkaf.amber.api.item.v1.StackFingerprint;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.iamkaf.amber.compat.ItemCompat.*;
+
+/**
+ * A reusable copy of what a set of slots held, as primitive arrays: each slot's raw item id, count, damage and
+ * {@linkplain StackFingerprint data fingerprint}.
+ * <p>
+ * Capturing again overwrites the previous contents and only allocates when there are more slots than before,
+ * so code that inspects an inventory every frame can keep one snapshot. A slot that still holds the same stack
+ * with the same item, count and damage keeps its fingerprint without hashing the stack's data again, so
+ * capturing an unchanged inventory produces no garbage. Changes to such a stack's other data, made in place,
+ * are therefore not seen. Each capture also reports whether anything changed since the last one.
+ *
+ * <pre>
+ * private final InventorySnapshot armor = new InventorySnapshot();
+ *
+ * if (armor.captureArmor(player)) {
+ *     // rebuild the overlay
+ * }
+ * </pre>
+ */
+public final class InventorySnapshot {
+    private static final EquipmentSlot[] ARMOR_SLOTS = {
+            EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET
+    };
+
+    private int size;
+    private int[] itemIds = new int[0];
+    private int[] counts = new int[0];
+    private int[] damages = new int[0];
+    private long[] fingerprints = new long[0];
+    private ItemStack[] stacks = new ItemStack[0];
+
+    /**
+     * Captures every slot of an inventory.
+     *
+     * @return {@code true} if anything differs from the previous capture
+     */
+    public boolean capture(Inventory inventory) {
+        int slots = inventorySize(inventory);
+        boolean changed = resize(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            changed |= set(slot, inventoryItem(inventory, slot));
+        }
+        return changed;
+    }
+
+    /**
+     * Captures a player's armor slots, in the order head, chest, legs, feet.
+     *
+     * @return {@code true} if anything differs from the previous capture
+     */
+    public boolean captureArmor(Player player) {
+        boolean changed = resize(ARMOR_SLOTS.length);
+        for (int slot = 0; slot < ARMOR_SLOTS.length; slot++) {
+            changed |= set(slot, playerItemBySlot(player, ARMOR_SLOTS[slot]));
+        }
+        return changed;
+    }
+
+    /**
+     * Captures a list of stacks, such as an {@link InventoryView}.
+     *
+     * @return {@code true} if anything differs from the previous capture
+     */
+    public boolean capture(List<ItemStack> stacks) {
+        int slots = stacks.size();
+        boolean changed = resize(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            changed |= set(slot, stacks.get(slot));
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the number of captured slots.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a slot was empty.
+     */
+    public boolean isEmpty(int slot) {
+        return counts[check(slot)] == 0;
+    }
+
+    /**
+     * Gets the raw id of the item in a slot, or 0 if it was empty.
+     */
+    public int itemId(int slot) {
+        return itemIds[check(slot)];
+    }
+
+    /**
+     * Gets the item in a slot.
+     */
+    public Item item(int slot) {
+        return Item.byId(itemIds[check(slot)]);
+    }
+
+    /**
+     * Gets the stack size in a slot, or 0 if it was empty.
+     */
+    public int count(int slot) {
+        return counts[check(slot)];
+    }
+
+    /**
+     * Gets the damage of the stack in a slot.
+     */
+    public int damage(int slot) {
+        return damages[check(slot)];
+    }
+
+    /**
+     * Gets the fingerprint of the stack in a slot, or 0 if it was empty.
+     */
+    public long fingerprint(int slot) {
+        return fingerprints[check(slot)];
+    }
+
+    private boolean resize(int slots) {
+        if (slots > itemIds.length) {
+            itemIds = Arrays.copyOf(itemIds, slots);
+            counts = Arrays.copyOf(counts, slots);
+            damages = Arrays.copyOf(damages, slots);
+            fingerprints = Arrays.copyOf(fingerprints, slots);
+            stacks = Arrays.copyOf(stacks, slots);
+        }
+        // Drop references to stacks in slots that are no longer captured
+        Arrays.fill(stacks, slots, stacks.length, null);
+        boolean changed = slots != size;
+        size = slots;
+        return changed;
+    }
+
+    private boolean set(int slot, ItemStack stack) {
+        int itemId = 0;
+        int count = 0;
+        int damage = 0;
+        long fingerprint = 0L;
+        if (!stack.isEmpty()) {
+            itemId = Item.getId(stackItem(stack));
+            count = stackCount(stack);
+            damage = stackDamage(stack);
+            if (stack == stacks[slot] && itemId == itemIds[slot] && counts[slot] == count && damages[slot] == damage) {
+                return false;
+            }
+            fingerprint = StackFingerprint.of(stack);
+        }
+        stacks[slot] = stack;
+        boolean changed = itemIds[slot] != itemId || counts[slot] != count || damages[slot] != damage
+                || fingerprints[slot] != fingerprint;
+        itemIds[slot] = itemId;
+        counts[slot] = count;
+        damages[slot] = damage;
+        fingerprints[slot] = fingerprint;
+        return changed;
+    }
+
+    private int check(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+        }
+        return slot;
+    }
+}
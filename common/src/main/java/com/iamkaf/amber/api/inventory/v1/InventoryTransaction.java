@@ -0,0 +1,302 @@
+package com.iamkaf.amber.api.inventory.v1;
+
+import com.iamkaf.amber.compat.ItemCompat;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+//? if >=1.18.2
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.level.ItemLike;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Consumes several ingredients from a container at once, or nothing at all.
+ * <p>
+ * Each requirement may be drawn from any number of stacks. Planning makes a single pass over the container,
+ * recording which requirements each stack could satisfy, then assigns stacks to requirements as a maximum
+ * flow, so every requirement is met whenever the container can pay for all of them at once. Nothing is
+ * changed until {@link #commit()}, which checks that the planned stacks are still in place before shrinking
+ * any of them.
+ *
+ * <pre>
+ * InventoryTransaction transaction = ItemFunctions.transaction(player.getInventory())
+ *         .require(Items.IRON_INGOT, 3)
+ *         .require(ItemTags.PLANKS, 2);
+ * if (transaction.commit()) {
+ *     // craft the result
+ * }
+ * </pre>
+ * <p>
+ * A transaction supports up to 64 requirements and must be used on the thread that owns the container.
+ */
+public final class InventoryTransaction {
+    private static final int MAX_REQUIREMENTS = 64;
+
+    private final Container container;
+    private final List<Predicate<ItemStack>> filters = new ArrayList<>();
+    private final IntArrayList amounts = new IntArrayList();
+    private State state = State.OPEN;
+
+    // Planned draws: the slot, the stack seen there and how much to take from it
+    private final IntArrayList plannedSlots = new IntArrayList();
+    private final List<ItemStack> plannedStacks = new ArrayList<>();
+    private final IntArrayList plannedAmounts = new IntArrayList();
+    private int[] shortfalls = new int[0];
+
+    private InventoryTransaction(Container container) {
+        this.container = container;
+    }
+
+    /**
+     * Starts a transaction against a container, such as a player's inventory.
+     *
+     * @param container the container to take items from
+     * @return the transaction
+     */
+    public static InventoryTransaction begin(Container container) {
+        return new InventoryTransaction(container);
+    }
+
+    /**
+     * Requires {@code amount} items matching an ingredient.
+     *
+     * @return this transaction
+     */
+    public InventoryTransaction require(Ingredient ingredient, int amount) {
+        return require((Predicate<ItemStack>) ingredient, amount);
+    }
+
+    /**
+     * Requires {@code amount} of an item.
+     *
+     * @return this transaction
+     */
+    public InventoryTransaction require(ItemLike item, int amount) {
+        Item expected = ItemCompat.itemLikeItem(item);
+        return require(stack -> ItemCompat.stackItem(stack) == expected, amount);
+    }
+
+    //? if >=1.18.2 {
+    /**
+     * Requires {@code amount} items in a tag.
+     *
+     * @return this transaction
+     */
+    public InventoryTransaction require(TagKey<Item> tag, int amount) {
+        return require(stack -> stack.is(tag), amount);
+    }
+    //?}
+
+    /**
+     * Requires {@code amount} items matching a predicate.
+     *
+     * @return this transaction
+     */
+    public InventoryTransaction require(Predicate<ItemStack> filter, int amount) {
+        if (state != State.OPEN) {
+            throw new IllegalStateException("Transaction has already been " + state.name().toLowerCase());
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("amount must be positive");
+        }
+        if (filters.size() == MAX_REQUIREMENTS) {
+            throw new IllegalStateException("A transaction supports at most " + MAX_REQUIREMENTS + " requirements");
+        }
+        filters.add(filter);
+        amounts.add(amount);
+        return this;
+    }
+
+    /**
+     * Checks whether every requirement can be met at once. Plans the transaction if it has not been planned.
+     */
+    public boolean isFeasible() {
+        if (state == State.OPEN) {
+            plan();
+        }
+        for (int shortfall : shortfalls) {
+            if (shortfall > 0) {
+                return false;
+            }
+        }
+        return state == State.PLANNED;
+    }
+
+    /**
+     * Gets how many items are missing for a requirement, in the order they were added.
+     *
+     * @return the number of items missing, or 0 if the requirement can be met
+     */
+    public int getShortfall(int requirement) {
+        if (state == State.OPEN) {
+            plan();
+        }
+        return shortfalls[requirement];
+    }
+
+    /**
+     * Takes every required item, or nothing if any requirement cannot be met or the container changed since
+     * the transaction was planned.
+     *
+     * @return {@code true} if the items were taken
+     */
+    public boolean commit() {
+        if (!isFeasible()) {
+            return false;
+        }
+        for (int i = 0; i < plannedSlots.size(); i++) {
+            ItemStack stack = container.getItem(plannedSlots.getInt(i));
+            if (stack != plannedStacks.get(i) || ItemCompat.stackCount(stack) < totalPlanned(plannedSlots.getInt(i))) {
+                state = State.ABORTED;
+                return false;
+            }
+        }
+        for (int i = 0; i < plannedSlots.size(); i++) {
+            ItemCompat.shrinkStack(plannedStacks.get(i), plannedAmounts.getInt(i));
+        }
+        container.setChanged();
+        if (container instanceof Inventory inventory) {
+            InventoryIndex index = InventoryIndex.get(inventory);
+            if (index != null) {
+                index.invalidate();
+            }
+        }
+        state = State.COMMITTED;
+        return true;
+    }
+
+    /**
+     * Discards the transaction without taking anything.
+     */
+    public void abort() {
+        if (state != State.COMMITTED) {
+            state = State.ABORTED;
+        }
+    }
+
+    private void plan() {
+        int requirements = filters.size();
+        int size = container.getContainerSize();
+
+        // One pass: which requirements each stack could go towards
+        long[] matches = new long[size];
+        for (int slot = 0; slot < size; slot++) {
+            ItemStack stack = container.getItem(slot);
+            if (stack.isEmpty()) {
+                continue;
+            }
+            for (int requirement = 0; requirement < requirements; requirement++) {
+                if (filters.get(requirement).test(stack)) {
+                    matches[slot] |= 1L << requirement;
+                }
+            }
+        }
+
+        // Assign stacks to requirements as a maximum flow: source -> requirement (amount) -> matching stack ->
+        // sink (stack count). A greedy assignment can spend a shared stack on the wrong requirement.
+        IntArrayList candidateSlots = new IntArrayList();
+        for (int slot = 0; slot < size; slot++) {
+            if (matches[slot] != 0) {
+                candidateSlots.add(slot);
+            }
+        }
+        int stacks = candidateSlots.size();
+        int source = 0;
+        int firstStack = 1 + requirements;
+        int sink = firstStack + stacks;
+        int[][] residual = new int[sink + 1][sink + 1];
+        for (int requirement = 0; requirement < requirements; requirement++) {
+            residual[source][1 + requirement] = amounts.getInt(requirement);
+        }
+        for (int i = 0; i < stacks; i++) {
+            int slot = candidateSlots.getInt(i);
+            residual[firstStack + i][sink] = ItemCompat.stackCount(container.getItem(slot));
+            for (int requirement = 0; requirement < requirements; requirement++) {
+                if ((matches[slot] & (1L << requirement)) != 0) {
+                    residual[1 + requirement][firstStack + i] = amounts.getInt(requirement);
+                }
+            }
+        }
+        maxFlow(residual, source, sink);
+
+        // Stack to requirement edges start empty, so their residual capacity is the flow drawn
+        shortfalls = new int[requirements];
+        for (int requirement = 0; requirement < requirements; requirement++) {
+            int needed = amounts.getInt(requirement);
+            for (int i = 0; i < stacks; i++) {
+                int taken = residual[firstStack + i][1 + requirement];
+                if (taken == 0) {
+                    continue;
+                }
+                int slot = candidateSlots.getInt(i);
+                needed -= taken;
+                plannedSlots.add(slot);
+                plannedStacks.add(container.getItem(slot));
+                plannedAmounts.add(taken);
+            }
+            shortfalls[requirement] = needed;
+        }
+        state = State.PLANNED;
+    }
+
+    /**
+     * Pushes as much flow as possible from source to sink along shortest augmenting paths, leaving the residual
+     * capacities in {@code residual}.
+     */
+    private static void maxFlow(int[][] residual, int source, int sink) {
+        int nodes = residual.length;
+        int[] parent = new int[nodes];
+        int[] queue = new int[nodes];
+        while (true) {
+            Arrays.fill(parent, -1);
+            parent[source] = source;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail && parent[sink] < 0) {
+                int node = queue[head++];
+                for (int next = 0; next < nodes; next++) {
+                    if (parent[next] < 0 && residual[node][next] > 0) {
+                        parent[next] = node;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            if (parent[sink] < 0) {
+                return;
+            }
+            int bottleneck = Integer.MAX_VALUE;
+            for (int node = sink; node != source; node = parent[node]) {
+                bottleneck = Math.min(bottleneck, residual[parent[node]][node]);
+            }
+            for (int node = sink; node != source; node = parent[node]) {
+                residual[parent[node]][node] -= bottleneck;
+                residual[node][parent[node]] += bottleneck;
+            }
+        }
+    }
+
+    private int totalPlanned(int slot) {
+        int total = 0;
+        for (int i = 0; i < plannedSlots.size(); i++) {
+            if (plannedSlots.getInt(i) == slot) {
+                total += plannedAmounts.getInt(i);
+            }
+        }
+        return total;
+    }
+
+    private enum State {
+        OPEN,
+        PLANNED,
+        COMMITTED,
+        ABORTED
+    }
+}
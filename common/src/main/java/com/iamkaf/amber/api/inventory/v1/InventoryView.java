@@ -0,0 +1,80 @@
+package com.iamkaf.amber.api.inventory.v1;
+
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.iamkaf.amber.compat.ItemCompat.*;
+
+/**
+ * Read-only lists backed directly by an inventory or a player's armor slots. Reading a view reads the live
+ * slots, so a view can be created once and kept, with nothing copied per call. The returned stacks are the
+ * inventory's own and must not be modified through a view.
+ */
+public final class InventoryView {
+    private static final EquipmentSlot[] ARMOR_SLOTS = {
+            EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET
+    };
+
+    private InventoryView() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Gets a live view of every slot in an inventory.
+     */
+    public static List<ItemStack> of(Inventory inventory) {
+        return new Slots(inventory);
+    }
+
+    /**
+     * Gets a live view of a player's armor slots, in the order head, chest, legs, feet.
+     */
+    public static List<ItemStack> armor(Player player) {
+        return new Armor(player);
+    }
+
+    private static final class Slots extends AbstractList<ItemStack> implements RandomAccess {
+        private final Inventory inventory;
+
+        private Slots(Inventory inventory) {
+            this.inventory = inventory;
+        }
+
+        @Override
+        public ItemStack get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Slot " + index + " out of bounds for size " + size());
+            }
+            return inventoryItem(inventory, index);
+        }
+
+        @Override
+        public int size() {
+            return inventorySize(inventory);
+        }
+    }
+
+    private static final class Armor extends AbstractList<ItemStack> implements RandomAccess {
+        private final Player player;
+
+        private Armor(Player player) {
+            this.player = player;
+        }
+
+        @Override
+        public ItemStack get(int index) {
+            return playerItemBySlot(player, ARMOR_SLOTS[index]);
+        }
+
+        @Override
+        public int size() {
+            return ARMOR_SLOTS.length;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.iamkaf.amber.api.inventory.v1;
+
+import com.iamkaf.amber.api.event.v1.events.common.TagEvents;
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.api.event.v1.events.common.client.ClientTickEvents;
+import com.iamkaf.amber.api.platform.v1.Platform;
+import com.iamkaf.amber.compat.ClientCompat;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A counter that moves on whenever tags or data-driven registries may have been reloaded, for caches built
+ * from them. A cache records the generation it was built in and rebuilds once {@link #current()} differs.
+ * <p>
+ * The counter moves on once each time tags are loaded, as reported by {@link TagEvents#TAGS_LOADED}, when a
+ * world loads and when the client joins a world or changes dimension, since those bring new registries. Call
+ * {@link #bump()} after changing tags by other means.
+ */
+public final class ReloadGeneration {
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private ReloadGeneration() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Gets the current generation.
+     */
+    public static int current() {
+        registerListeners();
+        return GENERATION.get();
+    }
+
+    /**
+     * Moves the counter on, so every cache rebuilds on its next use.
+     */
+    public static void bump() {
+        GENERATION.incrementAndGet();
+    }
+
+    private static void registerListeners() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            TagEvents.TAGS_LOADED.register(ReloadGeneration::bump);
+            WorldEvents.WORLD_LOAD.register((server, level) -> bump());
+            if (Platform.isClient()) {
+                Client.register();
+            }
+        }
+    }
+
+    /**
+     * Watches for the client joining a world, kept separate so servers never load client classes.
+     */
+    private static final class Client {
+        private static Object lastLevel;
+
+        private static void register() {
+            ClientTickEvents.END_CLIENT_TICK.register(() -> {
+                Object level = ClientCompat.minecraft().level;
+                if (level != lastLevel) {
+                    lastLevel = level;
+                    bump();
+                }
+            });
+        }
+    }
+}
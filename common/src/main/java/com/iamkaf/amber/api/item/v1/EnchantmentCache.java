@@ -0,0 +1,149 @@
+package com.iamkaf.amber.api.item.v1;
+//? if >=1.20.5 {
+
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.api.inventory.v1.ReloadGeneration;
+import com.iamkaf.amber.api.platform.v1.Platform;
+import com.iamkaf.amber.compat.ClientCompat;
+import net.minecraft.core.Holder;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.Identifier;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.item.enchantment.Enchantment;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves enchantment identifiers to registry holders once, so checking a stack for an enchantment compares
+ * holders by identity instead of comparing identifiers or enchantment definitions.
+ * <p>
+ * Holders are looked up in the registries of the running server and of the client's current world, which
+ * hold separate holders in single player. Resolved holders are kept until a reload is reported by
+ * {@link ReloadGeneration}. Safe to use from any thread.
+ */
+public final class EnchantmentCache {
+    @SuppressWarnings("unchecked")
+    private static final Holder<Enchantment>[] NONE = new Holder[0];
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static volatile WeakReference<RegistryAccess> serverRegistries = new WeakReference<>(null);
+    private static volatile Resolved resolved;
+
+    private EnchantmentCache() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Gets the holder for an enchantment, preferring the server's registry.
+     *
+     * @param id the enchantment's id
+     * @return the holder, or {@code null} if no known registry has the enchantment
+     */
+    public static @Nullable Holder<Enchantment> get(Identifier id) {
+        Holder<Enchantment>[] holders = holders(id);
+        return holders.length == 0 ? null : holders[0];
+    }
+
+    /**
+     * Gets the holders for an enchantment in every registry Amber knows of: the server's first, then the
+     * client's if it is a different holder.
+     *
+     * @param id the enchantment's id
+     * @return the holders, empty if no known registry has the enchantment or no registry is known yet
+     */
+    public static Holder<Enchantment>[] holders(Identifier id) {
+        initialize();
+        int generation = ReloadGeneration.current();
+        Resolved current = resolved;
+        if (current == null || current.generation != generation) {
+            current = new Resolved(generation, new ConcurrentHashMap<>());
+            resolved = current;
+        }
+        return current.holders.computeIfAbsent(id, EnchantmentCache::resolve);
+    }
+
+    /**
+     * Checks whether a holder is the given enchantment. Compares identities when the enchantment has been
+     * resolved and falls back to comparing ids when no registry is known.
+     *
+     * @param holder the holder to check, such as one from a stack's enchantments
+     * @param id     the enchantment's id
+     * @return {@code true} if the holder is the enchantment
+     */
+    public static boolean is(Holder<Enchantment> holder, Identifier id) {
+        return is(holder, holders(id), id);
+    }
+
+    /**
+     * Checks whether a holder is one of the already resolved {@code holders} of {@code id}, for checking many
+     * holders against the same enchantment.
+     */
+    public static boolean is(Holder<Enchantment> holder, Holder<Enchantment>[] holders, Identifier id) {
+        if (holders.length == 0) {
+            return holder.is(id);
+        }
+        for (Holder<Enchantment> candidate : holders) {
+            if (holder == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Holder<Enchantment>[] resolve(Identifier id) {
+        ResourceKey<Enchantment> key = ResourceKey.create(Registries.ENCHANTMENT, id);
+        Holder<Enchantment> server = lookup(serverRegistries.get(), key);
+        Holder<Enchantment> client = Platform.isClient() ? Client.lookup(key) : null;
+        if (server == null && client == null) {
+            return NONE;
+        }
+        if (server == null || client == null || server == client) {
+            return array(server != null ? server : client);
+        }
+        return array(server, client);
+    }
+
+    private static @Nullable Holder<Enchantment> lookup(@Nullable RegistryAccess registries, ResourceKey<Enchantment> key) {
+        if (registries == null) {
+            return null;
+        }
+        return registries.lookupOrThrow(Registries.ENCHANTMENT).get(key).orElse(null);
+    }
+
+    @SafeVarargs
+    private static Holder<Enchantment>[] array(Holder<Enchantment>... holders) {
+        return holders;
+    }
+
+    /**
+     * Starts tracking the server's registries. Called by Amber during initialization, so the first world to
+     * load is seen.
+     */
+    public static void initialize() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            WorldEvents.WORLD_LOAD.register((server, level) -> {
+                if (server != null) {
+                    serverRegistries = new WeakReference<>(server.registryAccess());
+                }
+            });
+        }
+    }
+
+    private record Resolved(int generation, Map<Identifier, Holder<Enchantment>[]> holders) {
+    }
+
+    /**
+     * Reads the client's registries, kept separate so servers never load client classes.
+     */
+    private static final class Client {
+        private static @Nullable Holder<Enchantment> lookup(ResourceKey<Enchantment> key) {
+            var level = ClientCompat.minecraft().level;
+            return level == null ? null : EnchantmentCache.lookup(level.registryAccess(), key);
+        }
+    }
+}
+//?}
@@ -0,0 +1,208 @@
+package com.iamkaf.amber.api.item.v1;
+
+import com.iamkaf.amber.api.inventory.v1.ReloadGeneration;
+//? if >=1.20.5
+import net.minecraft.core.component.DataComponents;
+//? if <1.20.5
+/*import net.minecraft.world.entity.EquipmentSlot;*/
+//? if >=1.20.5 && <1.21.5
+/*import net.minecraft.world.entity.ai.attributes.Attributes;*/
+//? if <1.16
+/*import net.minecraft.world.entity.monster.SharedMonsterAttributes;*/
+//? if <1.21.2
+/*import net.minecraft.world.item.ArmorItem;*/
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+//? if >=1.20.5 && <1.21.5
+/*import net.minecraft.world.item.component.ItemAttributeModifiers;*/
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static com.iamkaf.amber.compat.ItemCompat.*;
+
+/**
+ * A table of item categories by raw item id, so classifying an item is an array read.
+ * <p>
+ * Each category tests an item's default stack. The table tests every registered item against every category
+ * once and is rebuilt after reloads, as tracked by {@link ReloadGeneration}, or after a category is added.
+ * Stacks whose data differs from their item's defaults are tested directly, since their data may change the
+ * answer. Mods can add up to {@value #MAX_CATEGORIES} categories in total with {@link #register}.
+ *
+ * <pre>
+ * public static final ItemClassifier.Category MAGIC = ItemClassifier.register("mymod:magic",
+ *         stack -> stack.is(MyTags.MAGIC_ITEMS));
+ *
+ * if (ItemClassifier.is(stack, MAGIC)) { ... }
+ * </pre>
+ */
+public final class ItemClassifier {
+    private static final int MAX_CATEGORIES = 32;
+    private static final List<Category> CATEGORIES = new CopyOnWriteArrayList<>();
+
+    /**
+     * Tools, such as pickaxes, axes and shovels.
+     */
+    public static final Category TOOL = register("amber:tool", ItemClassifier::hasToolData);
+    /**
+     * Weapons, such as swords and tridents.
+     */
+    public static final Category WEAPON = register("amber:weapon", ItemClassifier::hasWeaponData);
+    /**
+     * Armor and other equippable items.
+     */
+    public static final Category ARMOR = register("amber:armor", ItemClassifier::hasArmorData);
+    /**
+     * Items that take damage with use and can be repaired.
+     */
+    public static final Category DAMAGEABLE = register("amber:damageable", ItemStack::isDamageableItem);
+
+    private static volatile Table table;
+
+    private ItemClassifier() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Adds a category. The table is rebuilt the next time it is read.
+     *
+     * @param name a unique name for the category, such as {@code "mymod:magic"}
+     * @param test tests an item's default stack, or a stack with changed data
+     * @return the category
+     */
+    public static synchronized Category register(String name, Predicate<ItemStack> test) {
+        if (CATEGORIES.size() == MAX_CATEGORIES) {
+            throw new IllegalStateException("At most " + MAX_CATEGORIES + " item categories can be registered");
+        }
+        for (Category category : CATEGORIES) {
+            if (category.name().equals(name)) {
+                throw new IllegalArgumentException("Item category " + name + " is already registered");
+            }
+        }
+        Category category = new Category(name, 1 << CATEGORIES.size(), test);
+        CATEGORIES.add(category);
+        return category;
+    }
+
+    /**
+     * Checks whether an item is in a category.
+     */
+    public static boolean is(Item item, Category category) {
+        return (flags(item) & category.mask()) != 0;
+    }
+
+    /**
+     * Checks whether a stack is in a category. Stacks with the default data for their item are looked up in
+     * the table, others are tested directly.
+     */
+    public static boolean is(ItemStack stack, Category category) {
+        if (stack.isEmpty()) {
+            return false;
+        }
+        if (hasChangedData(stack)) {
+            return category.test().test(stack);
+        }
+        return is(stackItem(stack), category);
+    }
+
+    /**
+     * Gets the categories of an item as a bit mask of {@link Category#mask()} values.
+     */
+    public static int flags(Item item) {
+        int[] flags = table().flags;
+        int id = Item.getId(item);
+        return id < flags.length ? flags[id] : 0;
+    }
+
+    /**
+     * Checks whether an item is in any of the categories in a mask, such as
+     * {@code TOOL.mask() | WEAPON.mask()}.
+     */
+    public static boolean isAny(Item item, int mask) {
+        return (flags(item) & mask) != 0;
+    }
+
+    private static Table table() {
+        int generation = ReloadGeneration.current();
+        int categories = CATEGORIES.size();
+        Table current = table;
+        if (current == null || current.generation != generation || current.categories != categories) {
+            current = build(generation);
+            table = current;
+        }
+        return current;
+    }
+
+    private static Table build(int generation) {
+        List<Category> categories = List.copyOf(CATEGORIES);
+        int size = 1;
+        while (Item.byId(size) != Items.AIR) {
+            size++;
+        }
+        int[] flags = new int[size];
+        for (int id = 1; id < size; id++) {
+            ItemStack stack = Item.byId(id).getDefaultInstance();
+            for (Category category : categories) {
+                if (category.test().test(stack)) {
+                    flags[id] |= category.mask();
+                }
+            }
+        }
+        return new Table(generation, categories.size(), flags);
+    }
+
+    private static boolean hasChangedData(ItemStack stack) {
+        // Reads the patch's size instead of building a copy of it
+        //? if >=1.20.5
+        return !stack.isComponentsPatchEmpty();
+        //? if <1.20.5
+        /*return stack.hasTag();*/
+    }
+
+    private static boolean hasToolData(ItemStack stack) {
+        //? if <1.20.5
+        /*return stackItem(stack) instanceof net.minecraft.world.item.TieredItem;*/
+        //? if >=1.20.5
+        return stack.has(DataComponents.TOOL);
+    }
+
+    private static boolean hasWeaponData(ItemStack stack) {
+        //? if <1.16
+        /*return stack.getAttributeModifiers(EquipmentSlot.MAINHAND).containsKey(SharedMonsterAttributes.ATTACK_DAMAGE.getName());*/
+        //? if <1.20.5 && >=1.16
+        /*return stackAttributeModifiers(stack, EquipmentSlot.MAINHAND).containsKey(attackDamageAttribute());*/
+        //? if >=1.20.5 {
+        //? if >=1.21.5
+        return stack.has(DataComponents.WEAPON);
+        //? if <1.21.5 {
+        /*return stack.getOrDefault(DataComponents.ATTRIBUTE_MODIFIERS, ItemAttributeModifiers.EMPTY)
+                .modifiers()
+                .stream()
+                .anyMatch(modifier -> modifier.attribute().equals(Attributes.ATTACK_DAMAGE)
+                        && modifier.modifier().amount() > 0.0D);
+        *///?}
+        //?}
+    }
+
+    private static boolean hasArmorData(ItemStack stack) {
+        //? if >=1.21.2
+        return stack.has(DataComponents.EQUIPPABLE);
+        //? if <1.21.2
+        /*return stackItem(stack) instanceof ArmorItem;*/
+    }
+
+    /**
+     * An item category, holding one bit of the table.
+     *
+     * @param name the category's unique name
+     * @param mask the category's bit
+     * @param test tests a stack for the category
+     */
+    public record Category(String name, int mask, Predicate<ItemStack> test) {
+    }
+
+    private record Table(int generation, int categories, int[] flags) {
+    }
+}
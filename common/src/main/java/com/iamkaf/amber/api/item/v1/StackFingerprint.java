@@ -0,0 +1,153 @@
+package com.iamkaf.amber.api.item.v1;
+
+//? if >=1.20.5 {
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+//?}
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+//? if >=1.20.5
+import net.minecraft.core.component.DataComponentPatch;
+//? if <1.20.5
+/*import net.minecraft.nbt.CompoundTag;*/
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.iamkaf.amber.compat.ItemCompat.*;
+
+/**
+ * 64-bit fingerprints of an item stack's item and data, for grouping stacks in hash maps instead of comparing
+ * them pairwise.
+ * <p>
+ * Stacks of the same item with the same data always have the same fingerprint. Different stacks almost always
+ * differ, but may collide, so confirm a match with {@link #isSameItemSameData}. Fingerprints are stable for the
+ * running game only, since item ids and data hashes may change between sessions. On 1.20.5+, fingerprinting a
+ * stack with changed components copies its component changes once, which also makes the stack's next
+ * component change copy its components.
+ * <p>
+ * On 1.20.5+, {@linkplain #setInterning(boolean) interning} makes {@link #components(ItemStack)} return one
+ * shared instance for equal component changes, so long-lived keys share memory and compare by identity.
+ */
+public final class StackFingerprint {
+    //? if >=1.20.5
+    private static final Interner<DataComponentPatch> COMPONENTS = Interners.newWeakInterner();
+    private static volatile boolean interning;
+
+    private StackFingerprint() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Turns interning of component changes on or off. Off by default.
+     */
+    public static void setInterning(boolean enabled) {
+        interning = enabled;
+    }
+
+    /**
+     * Checks whether component changes are interned.
+     */
+    public static boolean isInterning() {
+        return interning;
+    }
+
+    /**
+     * Gets the fingerprint of a stack, ignoring its count.
+     *
+     * @return the fingerprint, or 0 for an empty stack
+     */
+    public static long of(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return 0L;
+        }
+        // Item id in the high half, data hash in the low half, then mixed so both spread over all 64 bits
+        long id = Item.getId(stackItem(stack));
+        return HashCommon.mix(id << 32 | (dataHash(stack) & 0xFFFFFFFFL));
+    }
+
+    //? if >=1.20.5 {
+    /**
+     * Gets the changes a stack makes to its item's default components. Equal changes are the same instance
+     * while interning is on.
+     */
+    public static DataComponentPatch components(ItemStack stack) {
+        if (stack.isComponentsPatchEmpty()) {
+            return DataComponentPatch.EMPTY;
+        }
+        DataComponentPatch patch = stack.getComponentsPatch();
+        return interning ? COMPONENTS.intern(patch) : patch;
+    }
+    //?}
+
+    /**
+     * Checks whether two stacks have the same item and the same data, ignoring their counts.
+     */
+    public static boolean isSameItemSameData(ItemStack first, ItemStack second) {
+        //? if >=1.20.5
+        return ItemStack.isSameItemSameComponents(first, second);
+        //? if <1.20.5 && >=1.19.4
+        /*return ItemStack.isSameItemSameTags(first, second);*/
+        //? if <1.19.4
+        /*return ItemStack.isSame(first, second) && ItemStack.tagMatches(first, second);*/
+    }
+
+    /**
+     * Groups stacks by item and data in one pass, summing their counts. Each group is a copy of its first stack
+     * with the total count, which may be more than the item's maximum stack size. Groups keep the order in which
+     * they were first seen and empty stacks are skipped.
+     *
+     * @param stacks the stacks to group, left unchanged
+     * @return one stack per group
+     */
+    public static List<ItemStack> group(Collection<ItemStack> stacks) {
+        List<ItemStack> groups = new ArrayList<>();
+        IntArrayList totals = new IntArrayList();
+        // Groups that share a fingerprint are chained through next
+        Long2IntOpenHashMap heads = new Long2IntOpenHashMap();
+        heads.defaultReturnValue(-1);
+        IntArrayList next = new IntArrayList();
+
+        for (ItemStack stack : stacks) {
+            if (stack.isEmpty()) {
+                continue;
+            }
+            long fingerprint = of(stack);
+            int head = heads.get(fingerprint);
+            int group = head;
+            while (group >= 0 && !isSameItemSameData(groups.get(group), stack)) {
+                group = next.getInt(group);
+            }
+            if (group >= 0) {
+                totals.set(group, totals.getInt(group) + stackCount(stack));
+                continue;
+            }
+            heads.put(fingerprint, groups.size());
+            next.add(head);
+            groups.add(stack);
+            totals.add(stackCount(stack));
+        }
+
+        List<ItemStack> grouped = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            ItemStack copy = groups.get(i).copy();
+            copy.setCount(totals.getInt(i));
+            grouped.add(copy);
+        }
+        return grouped;
+    }
+
+    private static int dataHash(ItemStack stack) {
+        // Stacks with their item's default components are the common case, and need no copy of the patch
+        //? if >=1.20.5
+        return stack.isComponentsPatchEmpty() ? 0 : stack.getComponentsPatch().hashCode();
+        //? if <1.20.5 {
+        /*CompoundTag tag = stack.getTag();
+        return tag == null || tag.isEmpty() ? 0 : tag.hashCode();
+        *///?}
+    }
+}
@@ -0,0 +1,27 @@
+package com.iamkaf.amber.api.networking.v1;
+
+/**
+ * A packet whose latest value supersedes any earlier, still unsent packet with the same key.
+ * <p>
+ * Packets sent with {@link NetworkChannel#sendCoalesced(Packet, net.minecraft.server.level.ServerPlayer)}
+ * are held until the end of the server tick. If another packet of the same type and key is sent to the
+ * same player before then, it replaces the pending one, so only the most recent value goes out.
+ *
+ * <pre>
+ * public record EnergyPacket(BlockPos pos, int energy) implements Packet&lt;EnergyPacket&gt;, CoalescingPacket {
+ *     public long coalescingKey() {
+ *         return pos.asLong();
+ *     }
+ * }
+ * </pre>
+ */
+public interface CoalescingPacket {
+
+    /**
+     * Gets the key identifying what this packet updates, for example an entity id combined with a field index.
+     * Keys only need to be unique within a single packet type.
+     *
+     * @return the coalescing key
+     */
+    long coalescingKey();
+}
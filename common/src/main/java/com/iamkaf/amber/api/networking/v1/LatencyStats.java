@@ -0,0 +1,32 @@
+package com.iamkaf.amber.api.networking.v1;
+
+/**
+ * Rolling round trip time statistics for a single player, measured by the server.
+ * All durations are in nanoseconds.
+ *
+ * @param samples     number of samples in the rolling window
+ * @param lastNanos   the most recent round trip
+ * @param smoothNanos exponentially smoothed round trip, suitable for lag compensation
+ * @param p50Nanos    median round trip over the window
+ * @param p95Nanos    95th percentile round trip over the window
+ * @param p99Nanos    99th percentile round trip over the window
+ * @param jitterNanos smoothed variation between consecutive round trips
+ */
+public record LatencyStats(
+        int samples,
+        long lastNanos,
+        long smoothNanos,
+        long p50Nanos,
+        long p95Nanos,
+        long p99Nanos,
+        long jitterNanos
+) {
+    /**
+     * Gets the smoothed round trip in milliseconds.
+     *
+     * @return the smoothed round trip time in milliseconds
+     */
+    public double smoothMillis() {
+        return smoothNanos / 1_000_000D;
+    }
+}
@@ -0,0 +1,97 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of nanosecond durations using power-of-two buckets.
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to within 2x.
+ */
+public final class NanoHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        total.add(nanos);
+    }
+
+    /**
+     * Gets the number of recorded samples.
+     *
+     * @return the sample count
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all recorded samples.
+     *
+     * @return the total in nanoseconds
+     */
+    public long totalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Gets the mean of all recorded samples.
+     *
+     * @return the mean in nanoseconds, or 0 if empty
+     */
+    public long meanNanos() {
+        long samples = count();
+        return samples == 0 ? 0 : totalNanos() / samples;
+    }
+
+    /**
+     * Estimates a percentile of the recorded samples.
+     *
+     * @param percentile the percentile between 0 and 1, e.g. 0.99
+     * @return the estimated value in nanoseconds, or 0 if empty
+     */
+    public long percentileNanos(double percentile) {
+        long samples = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            samples += snapshot[i];
+        }
+        if (samples == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(samples * percentile));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+    }
+}
@@ -18,6 +18,10 @@ import net.minecraft.server.level.ServerPlayer;
  * // Send packets
  * CHANNEL.sendToServer(new MyPacket());
  * CHANNEL.sendToPlayer(new MyPacket(), player);
+ *
+ * // Limit how often clients may send a packet
+ * CHANNEL.register(MyPacket.class, MyPacket::encode, MyPacket::decode, MyPacket::handle,
+ *         PacketOptions.builder().rateLimit(RateLimit.of(20, 40)).build());
  * </pre>
  */
 public interface NetworkChannel {
@@ -48,6 +52,25 @@ public interface NetworkChannel {
         PacketHandler<T> handler
     );
     
+    /**
+     * Registers a packet type with this channel using the given options.
+     * Rate limits in the options apply to packets received by the server.
+     * 
+     * @param <T> the packet type
+     * @param packetClass the packet class
+     * @param encoder function to encode the packet to a buffer
+     * @param decoder function to decode the packet from a buffer
+     * @param handler function to handle the received packet
+     * @param options rate limit and priority options for this packet type
+     */
+    <T extends Packet<T>> void register(
+        Class<T> packetClass,
+        PacketEncoder<T> encoder,
+        PacketDecoder<T> decoder,
+        PacketHandler<T> handler,
+        PacketOptions options
+    );
+    
     /**
      * Sends a packet from client to server.
      * Can only be called from the client side.
@@ -67,9 +90,35 @@ public interface NetworkChannel {
      */
     <T extends Packet<T>> void sendToPlayer(T packet, ServerPlayer player);
     
+    /**
+     * Sends a packet from server to a specific player with an explicit priority.
+     * {@link PacketPriority#BULK} packets are queued and sent at the end of the tick.
+     * Can only be called from the server side.
+     * 
+     * @param <T> the packet type
+     * @param packet the packet to send
+     * @param player the target player
+     * @param priority the outbound priority
+     */
+    <T extends Packet<T>> void sendToPlayer(T packet, ServerPlayer player, PacketPriority priority);
+    
+    /**
+     * Sends a packet from server to a specific player at the end of the current tick,
+     * replacing any pending packet of the same type with the same {@link CoalescingPacket#coalescingKey()}.
+     * Use this for state updates where only the latest value matters.
+     * Can only be called from the server side.
+     * 
+     * @param <T> the packet type
+     * @param packet the packet to send
+     * @param player the target player
+     */
+    <T extends Packet<T> & CoalescingPacket> void sendCoalesced(T packet, ServerPlayer player);
+    
     /**
      * Sends a packet from server to all players.
      * Can only be called from the server side.
+     * Uses the priority from the packet type's {@link PacketOptions}: {@link PacketPriority#BULK} packets are
+     * queued per player and drained within each player's bulk budget, like {@link #sendToPlayer}.
      * 
      * @param <T> the packet type
      * @param packet the packet to send
@@ -79,6 +128,7 @@ public interface NetworkChannel {
     /**
      * Sends a packet from server to all players except one.
      * Can only be called from the server side.
+     * Uses the priority from the packet type's {@link PacketOptions}, like {@link #sendToAllPlayers}.
      * 
      * @param <T> the packet type
      * @param packet the packet to send
@@ -86,6 +136,55 @@ public interface NetworkChannel {
      */
     <T extends Packet<T>> void sendToAllPlayersExcept(T packet, ServerPlayer except);
     
+    /**
+     * Limits how many packets of any type each player may send on this channel.
+     * This applies on top of any per-packet limits from {@link PacketOptions}.
+     * 
+     * @param rateLimit the channel rate limit, or null to remove it
+     * @return this channel
+     */
+    NetworkChannel setRateLimit(RateLimit rateLimit);
+    
+    /**
+     * Sets how many {@link PacketPriority#BULK} packets may be sent to each player per tick.
+     * Packets sent to the player at a higher priority during the same tick count against this budget.
+     * 
+     * @param packetsPerTick the per-player bulk budget, at least 1
+     * @return this channel
+     */
+    NetworkChannel setBulkBudget(int packetsPerTick);
+    
+    /**
+     * Gets the number of rate limit violations recorded on this channel.
+     * 
+     * @return the total violation count
+     */
+    long getRateLimitViolations();
+    
+    /**
+     * Gets the number of rate limit violations recorded for a packet type.
+     * 
+     * @param packetClass the packet class
+     * @return the violation count for that packet type
+     */
+    long getRateLimitViolations(Class<?> packetClass);
+    
+    /**
+     * Gets the number of bulk packets still waiting to be sent to a player.
+     * 
+     * @param player the player
+     * @return the queue length
+     */
+    int getQueuedBulkPackets(ServerPlayer player);
+    
+    /**
+     * Gets the number of coalesced packets waiting to be sent to a player at the end of the tick.
+     * 
+     * @param player the player
+     * @return the number of pending packets
+     */
+    int getPendingCoalescedPackets(ServerPlayer player);
+    
     /**
      * Gets the unique identifier for this channel.
      * 
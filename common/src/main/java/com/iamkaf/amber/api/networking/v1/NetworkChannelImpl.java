@@ -1,11 +1,17 @@
 package com.iamkaf.amber.api.networking.v1;
 
+import com.iamkaf.amber.api.event.v1.events.common.PlayerEvents;
+import com.iamkaf.amber.api.event.v1.events.common.ServerTickEvents;
 import com.iamkaf.amber.platform.Services;
 import net.minecraft.resources.Identifier;
 import net.minecraft.server.level.ServerPlayer;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Internal implementation of NetworkChannel.
@@ -14,13 +20,22 @@ import java.util.concurrent.ConcurrentMap;
 class NetworkChannelImpl implements NetworkChannel {
     
     private static final ConcurrentMap<Identifier, NetworkChannelImpl> CHANNELS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean LIFECYCLE_REGISTERED = new AtomicBoolean();
+    // Online players, so broadcasts can be queued and counted per player like single sends
+    private static final ConcurrentMap<UUID, ServerPlayer> PLAYERS = new ConcurrentHashMap<>();
     
     private final Identifier channelId;
     private final PlatformNetworkChannel platformChannel;
+    private final PacketFlowControl flowControl;
+    private final PacketCoalescer coalescer;
+    private final ConcurrentMap<Class<?>, PacketOptions> options = new ConcurrentHashMap<>();
     
     private NetworkChannelImpl(Identifier channelId) {
         this.channelId = channelId;
         this.platformChannel = Services.NETWORKING.createChannel(channelId);
+        this.flowControl = new PacketFlowControl(channelId);
+        this.coalescer = new PacketCoalescer(channelId);
+        registerLifecycle();
     }
     
     static NetworkChannel create(Identifier channelId) {
@@ -34,31 +49,168 @@ class NetworkChannelImpl implements NetworkChannel {
             PacketDecoder<T> decoder,
             PacketHandler<T> handler
     ) {
-        platformChannel.register(packetClass, encoder, decoder, handler);
+        register(packetClass, encoder, decoder, handler, PacketOptions.DEFAULT);
+    }
+    
+    @Override
+    public <T extends Packet<T>> void register(
+            Class<T> packetClass,
+            PacketEncoder<T> encoder,
+            PacketDecoder<T> decoder,
+            PacketHandler<T> handler,
+            PacketOptions packetOptions
+    ) {
+        options.put(packetClass, packetOptions);
+        PacketStats stats = NetworkMetrics.stats(channelId, packetClass);
+        PacketHandler<T> guarded = (packet, context) -> {
+            if (context.isServerSide()) {
+                ServerPlayer sender = context.getServerPlayer();
+                if (sender != null && !flowControl.allowInbound(packetClass, packetOptions.rateLimit(), sender, context)) {
+                    return;
+                }
+            }
+            handler.handle(packet, context);
+        };
+        platformChannel.register(
+                packetClass,
+                NetworkMetrics.meter(encoder, stats),
+                NetworkMetrics.meter(decoder, stats),
+                NetworkMetrics.meter(guarded, stats)
+        );
     }
     
     @Override
     public <T extends Packet<T>> void sendToServer(T packet) {
+        recordSent(packet);
         platformChannel.sendToServer(packet);
     }
     
     @Override
     public <T extends Packet<T>> void sendToPlayer(T packet, ServerPlayer player) {
+        sendToPlayer(packet, player, optionsFor(packet).priority());
+    }
+    
+    @Override
+    public <T extends Packet<T>> void sendToPlayer(T packet, ServerPlayer player, PacketPriority priority) {
+        recordSent(packet);
+        if (priority == PacketPriority.BULK) {
+            flowControl.enqueueBulk(player, () -> platformChannel.sendToPlayer(packet, player));
+            return;
+        }
+        flowControl.recordImmediate(player);
         platformChannel.sendToPlayer(packet, player);
     }
     
+    @Override
+    public <T extends Packet<T> & CoalescingPacket> void sendCoalesced(T packet, ServerPlayer player) {
+        coalescer.add(player, packet, packet.coalescingKey());
+    }
+    
     @Override
     public <T extends Packet<T>> void sendToAllPlayers(T packet) {
-        platformChannel.sendToAllPlayers(packet);
+        broadcast(packet, null);
     }
     
     @Override
     public <T extends Packet<T>> void sendToAllPlayersExcept(T packet, ServerPlayer except) {
-        platformChannel.sendToAllPlayersExcept(packet, except);
+        broadcast(packet, except);
+    }
+    
+    @Override
+    public NetworkChannel setRateLimit(RateLimit rateLimit) {
+        flowControl.setChannelLimit(rateLimit);
+        return this;
+    }
+    
+    @Override
+    public NetworkChannel setBulkBudget(int packetsPerTick) {
+        flowControl.setBulkBudget(packetsPerTick);
+        return this;
+    }
+    
+    @Override
+    public long getRateLimitViolations() {
+        return flowControl.getViolations();
+    }
+    
+    @Override
+    public long getRateLimitViolations(Class<?> packetClass) {
+        return flowControl.getViolations(packetClass);
+    }
+    
+    @Override
+    public int getQueuedBulkPackets(ServerPlayer player) {
+        return flowControl.getQueuedBulk(player);
+    }
+    
+    @Override
+    public int getPendingCoalescedPackets(ServerPlayer player) {
+        return coalescer.getPending(player);
     }
     
     @Override
     public Identifier getChannelId() {
         return channelId;
     }
-}
\ No newline at end of file
+    
+    private PacketOptions optionsFor(Packet<?> packet) {
+        PacketOptions packetOptions = options.get(packet.getClass());
+        return packetOptions == null ? PacketOptions.DEFAULT : packetOptions;
+    }
+    
+    private <T extends Packet<T>> void broadcast(T packet, @Nullable ServerPlayer except) {
+        recordSent(packet);
+        boolean bulk = optionsFor(packet).priority() == PacketPriority.BULK;
+        for (ServerPlayer player : PLAYERS.values()) {
+            if (except != null && player.getUUID().equals(except.getUUID())) {
+                continue;
+            }
+            if (bulk) {
+                flowControl.enqueueBulk(player, () -> platformChannel.sendToPlayer(packet, player));
+            } else {
+                flowControl.recordImmediate(player);
+            }
+        }
+        if (bulk) {
+            return;
+        }
+        // Gameplay packets still go out as one broadcast, so the platform can encode them once
+        if (except == null) {
+            platformChannel.sendToAllPlayers(packet);
+        } else {
+            platformChannel.sendToAllPlayersExcept(packet, except);
+        }
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void sendPending(Packet<?> packet, ServerPlayer player) {
+        sendToPlayer((Packet) packet, player);
+    }
+    
+    private void recordSent(Packet<?> packet) {
+        if (NetworkMetrics.isEnabled()) {
+            NetworkMetrics.stats(channelId, packet.getClass()).recordSent();
+        }
+    }
+    
+    private static void registerLifecycle() {
+        if (LIFECYCLE_REGISTERED.compareAndSet(false, true)) {
+            ServerTickEvents.END_SERVER_TICK.register(() -> {
+                for (NetworkChannelImpl channel : CHANNELS.values()) {
+                    // Coalesced packets go first so bulk ones among them can use this tick's budget
+                    channel.coalescer.flush(channel::sendPending);
+                    channel.flowControl.flush();
+                }
+            });
+            PlayerEvents.PLAYER_JOIN.register(player -> PLAYERS.put(player.getUUID(), player));
+            PlayerEvents.PLAYER_RESPAWN.register((oldPlayer, newPlayer, alive) -> PLAYERS.put(newPlayer.getUUID(), newPlayer));
+            PlayerEvents.PLAYER_LEAVE.register(player -> {
+                PLAYERS.remove(player.getUUID());
+                for (NetworkChannelImpl channel : CHANNELS.values()) {
+                    channel.flowControl.forget(player.getUUID());
+                    channel.coalescer.forget(player.getUUID());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import com.iamkaf.amber.Constants;
+import net.minecraft.resources.Identifier;
+import net.minecraft.world.entity.player.Player;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-channel, per-packet network metrics for every {@link NetworkChannel}.
+ * <p>
+ * Metrics are disabled by default. While disabled, the instrumented encoders, decoders and handlers
+ * only perform a single flag check before delegating. Metrics can be toggled at runtime with
+ * {@code /amber net enable} and viewed with {@code /amber net stats}.
+ */
+public final class NetworkMetrics {
+    private static final ConcurrentMap<Identifier, ConcurrentMap<Class<?>, PacketStats>> STATS = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = false;
+
+    private NetworkMetrics() {
+    }
+
+    /**
+     * Checks if metrics collection is enabled.
+     *
+     * @return true if metrics are being collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables metrics collection. Existing statistics are kept.
+     *
+     * @param enabled whether to collect metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        NetworkMetrics.enabled = enabled;
+        Constants.LOG.info("Amber network metrics {}", enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Clears all collected statistics.
+     */
+    public static void reset() {
+        for (ConcurrentMap<Class<?>, PacketStats> channel : STATS.values()) {
+            for (PacketStats stats : channel.values()) {
+                stats.reset();
+            }
+        }
+    }
+
+    /**
+     * Gets the statistics for every registered packet type, sorted by total bytes, highest first.
+     *
+     * @return a new list of packet statistics
+     */
+    public static List<PacketStats> getStats() {
+        List<PacketStats> result = new ArrayList<>();
+        for (ConcurrentMap<Class<?>, PacketStats> channel : STATS.values()) {
+            result.addAll(channel.values());
+        }
+        result.sort(Comparator.comparingLong((PacketStats stats) -> stats.bytesSent() + stats.bytesReceived()).reversed()
+                .thenComparing(stats -> stats.channelId().toString())
+                .thenComparing(stats -> stats.packetClass().getSimpleName()));
+        return result;
+    }
+
+    /**
+     * Gets the statistics for every packet type registered on a channel.
+     *
+     * @param channelId the channel identifier
+     * @return a new list of packet statistics, empty if the channel is unknown
+     */
+    public static List<PacketStats> getStats(Identifier channelId) {
+        ConcurrentMap<Class<?>, PacketStats> channel = STATS.get(channelId);
+        return channel == null ? new ArrayList<>() : new ArrayList<>(channel.values());
+    }
+
+    /**
+     * Writes all statistics to a CSV file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void exportCsv(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("channel,packet,packets_sent,bytes_sent,packets_received,bytes_received,"
+                    + "encode_mean_ns,encode_p99_ns,decode_mean_ns,decode_p99_ns,"
+                    + "handler_mean_ns,handler_p99_ns,queue_mean_ns,queue_p99_ns,task_mean_ns,task_p99_ns\n");
+            for (PacketStats stats : getStats()) {
+                writer.write(String.join(",",
+                        stats.channelId().toString(),
+                        stats.packetClass().getName(),
+                        Long.toString(stats.packetsSent()),
+                        Long.toString(stats.bytesSent()),
+                        Long.toString(stats.packetsReceived()),
+                        Long.toString(stats.bytesReceived()),
+                        Long.toString(stats.encodeNanos().meanNanos()),
+                        Long.toString(stats.encodeNanos().percentileNanos(0.99)),
+                        Long.toString(stats.decodeNanos().meanNanos()),
+                        Long.toString(stats.decodeNanos().percentileNanos(0.99)),
+                        Long.toString(stats.handlerNanos().meanNanos()),
+                        Long.toString(stats.handlerNanos().percentileNanos(0.99)),
+                        Long.toString(stats.queueNanos().meanNanos()),
+                        Long.toString(stats.queueNanos().percentileNanos(0.99)),
+                        Long.toString(stats.taskNanos().meanNanos()),
+                        Long.toString(stats.taskNanos().percentileNanos(0.99))
+                ));
+                writer.write("\n");
+            }
+        }
+    }
+
+    static PacketStats stats(Identifier channelId, Class<?> packetClass) {
+        return STATS.computeIfAbsent(channelId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(packetClass, type -> new PacketStats(channelId, type));
+    }
+
+    static <T extends Packet<T>> PacketEncoder<T> meter(PacketEncoder<T> encoder, PacketStats stats) {
+        return (packet, buffer) -> {
+            if (!enabled) {
+                encoder.encode(packet, buffer);
+                return;
+            }
+            int start = buffer.writerIndex();
+            long startNanos = System.nanoTime();
+            encoder.encode(packet, buffer);
+            stats.recordEncode(System.nanoTime() - startNanos, buffer.writerIndex() - start);
+        };
+    }
+
+    static <T extends Packet<T>> PacketDecoder<T> meter(PacketDecoder<T> decoder, PacketStats stats) {
+        return buffer -> {
+            if (!enabled) {
+                return decoder.decode(buffer);
+            }
+            int start = buffer.readerIndex();
+            long startNanos = System.nanoTime();
+            T packet = decoder.decode(buffer);
+            stats.recordDecode(System.nanoTime() - startNanos, buffer.readerIndex() - start);
+            return packet;
+        };
+    }
+
+    static <T extends Packet<T>> PacketHandler<T> meter(PacketHandler<T> handler, PacketStats stats) {
+        return (packet, context) -> {
+            if (!enabled) {
+                handler.handle(packet, context);
+                return;
+            }
+            stats.recordReceived();
+            long startNanos = System.nanoTime();
+            handler.handle(packet, new MeteredContext(context, stats));
+            stats.recordHandler(System.nanoTime() - startNanos);
+        };
+    }
+
+    /**
+     * Context wrapper that measures how long scheduled tasks wait for, and spend on, the game thread.
+     */
+    private record MeteredContext(PacketContext delegate, PacketStats stats) implements PacketContext {
+        @Override
+        public boolean isClientSide() {
+            return delegate.isClientSide();
+        }
+
+        @Override
+        public Player getPlayer() {
+            return delegate.getPlayer();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            long queuedAt = System.nanoTime();
+            delegate.execute(() -> {
+                long startNanos = System.nanoTime();
+                stats.recordQueue(startNanos - queuedAt);
+                try {
+                    task.run();
+                } finally {
+                    stats.recordTask(System.nanoTime() - startNanos);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import com.iamkaf.amber.Constants;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the latest pending {@link CoalescingPacket} per key, per packet type and per player for a single channel.
+ * <p>
+ * Pending packets are stored in insertion order in a reusable list, indexed by a primitive long map,
+ * so steady-state coalescing does not allocate.
+ */
+final class PacketCoalescer {
+    private final Identifier channelId;
+    private final ConcurrentMap<UUID, PlayerPending> players = new ConcurrentHashMap<>();
+
+    PacketCoalescer(Identifier channelId) {
+        this.channelId = channelId;
+    }
+
+    void add(ServerPlayer player, Packet<?> packet, long key) {
+        PlayerPending pending = players.computeIfAbsent(player.getUUID(), id -> new PlayerPending(player));
+        synchronized (pending) {
+            pending.slots.computeIfAbsent(packet.getClass(), type -> new Slots()).put(key, packet);
+        }
+    }
+
+    /**
+     * Sends every pending packet. Called once at the end of every server tick.
+     */
+    void flush(BiConsumer<Packet<?>, ServerPlayer> sender) {
+        for (Map.Entry<UUID, PlayerPending> entry : players.entrySet()) {
+            PlayerPending pending = entry.getValue();
+            if (pending.player.hasDisconnected()) {
+                players.remove(entry.getKey(), pending);
+                continue;
+            }
+            synchronized (pending) {
+                for (Slots slots : pending.slots.values()) {
+                    ArrayList<Packet<?>> packets = slots.packets;
+                    for (int i = 0; i < packets.size(); i++) {
+                        try {
+                            sender.accept(packets.get(i), pending.player);
+                        } catch (Exception e) {
+                            Constants.LOG.error("Failed to send coalesced packet on channel {}", channelId, e);
+                        }
+                    }
+                    slots.clear();
+                }
+            }
+        }
+    }
+
+    void forget(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    int getPending(ServerPlayer player) {
+        PlayerPending pending = players.get(player.getUUID());
+        if (pending == null) {
+            return 0;
+        }
+        synchronized (pending) {
+            int count = 0;
+            for (Slots slots : pending.slots.values()) {
+                count += slots.packets.size();
+            }
+            return count;
+        }
+    }
+
+    private static final class PlayerPending {
+        private final ServerPlayer player;
+        private final Map<Class<?>, Slots> slots = new IdentityHashMap<>();
+
+        private PlayerPending(ServerPlayer player) {
+            this.player = player;
+        }
+    }
+
+    private static final class Slots {
+        private final Long2IntOpenHashMap indices = new Long2IntOpenHashMap();
+        private final ArrayList<Packet<?>> packets = new ArrayList<>();
+
+        private Slots() {
+            indices.defaultReturnValue(-1);
+        }
+
+        private void put(long key, Packet<?> packet) {
+            int index = indices.get(key);
+            if (index >= 0) {
+                packets.set(index, packet);
+            } else {
+                indices.put(key, packets.size());
+                packets.add(packet);
+            }
+        }
+
+        private void clear() {
+            // clear() keeps the backing arrays, so the next tick reuses them
+            indices.clear();
+            packets.clear();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import com.iamkaf.amber.Constants;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-player flow control for a single channel.
+ * Tracks inbound token buckets, rate limit violations and the outbound bulk queue.
+ */
+final class PacketFlowControl {
+    static final int DEFAULT_BULK_BUDGET = 64;
+
+    private final Identifier channelId;
+    private final ConcurrentMap<UUID, PlayerState> players = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, AtomicLong> violations = new ConcurrentHashMap<>();
+    private final AtomicLong totalViolations = new AtomicLong();
+    private volatile @Nullable RateLimit channelLimit;
+    private volatile int bulkBudget = DEFAULT_BULK_BUDGET;
+
+    PacketFlowControl(Identifier channelId) {
+        this.channelId = channelId;
+    }
+
+    void setChannelLimit(@Nullable RateLimit channelLimit) {
+        this.channelLimit = channelLimit;
+        // Drop existing buckets so the new limit applies immediately
+        for (PlayerState state : players.values()) {
+            state.channelBucket = null;
+        }
+    }
+
+    void setBulkBudget(int bulkBudget) {
+        if (bulkBudget < 1) {
+            throw new IllegalArgumentException("bulkBudget must be at least 1");
+        }
+        this.bulkBudget = bulkBudget;
+    }
+
+    /**
+     * Consumes a token for an inbound packet, applying the violation policy when none is available.
+     *
+     * @return true if the packet may be handled
+     */
+    boolean allowInbound(Class<?> packetClass, @Nullable RateLimit packetLimit, ServerPlayer player, PacketContext context) {
+        RateLimit channelLimit = this.channelLimit;
+        if (channelLimit == null && packetLimit == null) {
+            return true;
+        }
+
+        PlayerState state = state(player);
+        RateLimit violated = null;
+        if (channelLimit != null && !state.channelBucket(channelLimit).tryAcquire()) {
+            violated = channelLimit;
+        } else if (packetLimit != null && !state.packetBucket(packetClass, packetLimit).tryAcquire()) {
+            violated = packetLimit;
+        }
+
+        if (violated == null) {
+            return true;
+        }
+
+        onViolation(packetClass, violated, state, player, context);
+        return false;
+    }
+
+    private void onViolation(Class<?> packetClass, RateLimit limit, PlayerState state, ServerPlayer player, PacketContext context) {
+        totalViolations.incrementAndGet();
+        violations.computeIfAbsent(packetClass, key -> new AtomicLong()).incrementAndGet();
+        long playerViolations = ++state.violations;
+
+        String playerName = player.getName().getString();
+        if (playerViolations == 1) {
+            Constants.LOG.warn("Player {} exceeded the rate limit for {} on channel {}",
+                    playerName, packetClass.getSimpleName(), channelId);
+        } else {
+            Constants.LOG.debug("Player {} exceeded the rate limit for {} on channel {} ({} violations)",
+                    playerName, packetClass.getSimpleName(), channelId, playerViolations);
+        }
+
+        if (limit.policy() == RateLimit.Policy.KICK && !state.kicked) {
+            state.kicked = true;
+            Constants.LOG.warn("Disconnecting {} for flooding channel {}", playerName, channelId);
+            context.execute(() -> player.connection.disconnect(literal("Too many packets")));
+        }
+    }
+
+    /**
+     * Records a packet that bypassed the bulk queue so bulk streams yield to it this tick.
+     */
+    void recordImmediate(ServerPlayer player) {
+        PlayerState state = state(player);
+        synchronized (state) {
+            state.immediateThisTick++;
+        }
+    }
+
+    void enqueueBulk(ServerPlayer player, Runnable send) {
+        PlayerState state = state(player);
+        synchronized (state) {
+            state.bulkQueue.add(send);
+        }
+    }
+
+    /**
+     * Drains queued bulk packets. Called once at the end of every server tick.
+     */
+    void flush() {
+        int budget = bulkBudget;
+        for (Map.Entry<UUID, PlayerState> entry : players.entrySet()) {
+            PlayerState state = entry.getValue();
+            ServerPlayer player = state.player;
+            if (player.hasDisconnected()) {
+                players.remove(entry.getKey(), state);
+                continue;
+            }
+            synchronized (state) {
+                // Always let at least one bulk packet through so streams cannot starve
+                int allowance = Math.max(1, budget - state.immediateThisTick);
+                state.immediateThisTick = 0;
+                while (allowance-- > 0 && !state.bulkQueue.isEmpty()) {
+                    Runnable send = state.bulkQueue.poll();
+                    try {
+                        send.run();
+                    } catch (Exception e) {
+                        Constants.LOG.error("Failed to send queued packet on channel {}", channelId, e);
+                    }
+                }
+            }
+        }
+    }
+
+    void forget(UUID playerId) {
+        players.remove(playerId);
+    }
+
+    long getViolations() {
+        return totalViolations.get();
+    }
+
+    long getViolations(Class<?> packetClass) {
+        AtomicLong count = violations.get(packetClass);
+        return count == null ? 0 : count.get();
+    }
+
+    int getQueuedBulk(ServerPlayer player) {
+        PlayerState state = players.get(player.getUUID());
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.bulkQueue.size();
+        }
+    }
+
+    private PlayerState state(ServerPlayer player) {
+        return players.computeIfAbsent(player.getUUID(), id -> new PlayerState(player));
+    }
+
+    //? if >=1.19
+    private static net.minecraft.network.chat.MutableComponent literal(String value) {
+    //? if <1.19
+    /*private static net.minecraft.network.chat.TextComponent literal(String value) {*/
+        //? if >=1.19
+        return Component.literal(value);
+        //? if <1.19
+        /*return new net.minecraft.network.chat.TextComponent(value);*/
+    }
+
+    private static final class PlayerState {
+        private final ConcurrentMap<Class<?>, TokenBucket> packetBuckets = new ConcurrentHashMap<>();
+        private final ArrayDeque<Runnable> bulkQueue = new ArrayDeque<>();
+        private final ServerPlayer player;
+        private volatile @Nullable TokenBucket channelBucket;
+        private volatile long violations;
+        private volatile boolean kicked;
+        private int immediateThisTick;
+
+        private PlayerState(ServerPlayer player) {
+            this.player = player;
+        }
+
+        private TokenBucket channelBucket(RateLimit limit) {
+            TokenBucket bucket = channelBucket;
+            if (bucket == null) {
+                bucket = new TokenBucket(limit);
+                channelBucket = bucket;
+            }
+            return bucket;
+        }
+
+        private TokenBucket packetBucket(Class<?> packetClass, RateLimit limit) {
+            return packetBuckets.computeIfAbsent(packetClass, key -> new TokenBucket(limit));
+        }
+    }
+
+    /**
+     * Classic token bucket refilled lazily from {@link System#nanoTime()}.
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(RateLimit limit) {
+            this.capacity = limit.burst();
+            this.refillPerNano = limit.packetsPerSecond() / 1_000_000_000D;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        private synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+            if (tokens >= 1D) {
+                tokens -= 1D;
+                return true;
+            }
+            return false;
+        }
+    }
+}
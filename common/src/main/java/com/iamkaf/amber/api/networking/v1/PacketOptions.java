@@ -0,0 +1,102 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-packet options supplied when registering a packet type with a {@link NetworkChannel}.
+ *
+ * <pre>
+ * CHANNEL.register(MyPacket.class, MyPacket::encode, MyPacket::decode, MyPacket::handle,
+ *         PacketOptions.builder()
+ *                 .rateLimit(RateLimit.of(20, 40).withPolicy(RateLimit.Policy.KICK))
+ *                 .priority(PacketPriority.BULK)
+ *                 .build());
+ * </pre>
+ */
+public final class PacketOptions {
+    /**
+     * Options used by {@link NetworkChannel#register(Class, PacketEncoder, PacketDecoder, PacketHandler)}:
+     * no rate limit and {@link PacketPriority#NORMAL} priority.
+     */
+    public static final PacketOptions DEFAULT = builder().build();
+
+    private final @Nullable RateLimit rateLimit;
+    private final PacketPriority priority;
+
+    private PacketOptions(Builder builder) {
+        this.rateLimit = builder.rateLimit;
+        this.priority = builder.priority;
+    }
+
+    /**
+     * Creates a new options builder.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the inbound rate limit for this packet type.
+     *
+     * @return the rate limit, or null if the packet type is not limited
+     */
+    public @Nullable RateLimit rateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Gets the default outbound priority for this packet type.
+     *
+     * @return the priority
+     */
+    public PacketPriority priority() {
+        return priority;
+    }
+
+    /**
+     * Builder for {@link PacketOptions}.
+     */
+    public static final class Builder {
+        private @Nullable RateLimit rateLimit;
+        private PacketPriority priority = PacketPriority.NORMAL;
+
+        private Builder() {
+        }
+
+        /**
+         * Limits how often each player may send this packet type to the server.
+         *
+         * @param rateLimit the rate limit, or null for no limit
+         * @return this builder
+         */
+        public Builder rateLimit(@Nullable RateLimit rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * Sets the default outbound priority used when this packet is sent to a player.
+         *
+         * @param priority the priority
+         * @return this builder
+         */
+        public Builder priority(PacketPriority priority) {
+            if (priority == null) {
+                throw new IllegalArgumentException("priority cannot be null");
+            }
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Builds the options.
+         *
+         * @return the packet options
+         */
+        public PacketOptions build() {
+            return new PacketOptions(this);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.iamkaf.amber.api.networking.v1;
+
+/**
+ * Outbound priority of a clientbound packet.
+ * <p>
+ * {@link #CRITICAL} and {@link #NORMAL} packets are handed to the platform immediately.
+ * {@link #BULK} packets are queued per player and drained at the end of each server tick,
+ * yielding their budget to any higher priority packets already sent to that player during the tick.
+ *
+ * @see NetworkChannel#setBulkBudget(int)
+ */
+public enum PacketPriority {
+    /**
+     * Gameplay-critical packets, always sent immediately.
+     */
+    CRITICAL,
+
+    /**
+     * Regular packets, sent immediately. This is the default priority.
+     */
+    NORMAL,
+
+    /**
+     * Bulk streams such as large syncs, queued and sent as the per-tick budget allows.
+     */
+    BULK
+}
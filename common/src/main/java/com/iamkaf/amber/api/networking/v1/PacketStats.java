@@ -0,0 +1,152 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import net.minecraft.resources.Identifier;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Traffic and timing statistics for one packet type on one channel.
+ * Only updated while {@link NetworkMetrics#isEnabled()} is true.
+ */
+public final class PacketStats {
+    private final Identifier channelId;
+    private final Class<?> packetClass;
+    private final LongAdder packetsSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder packetsReceived = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final NanoHistogram encodeNanos = new NanoHistogram();
+    private final NanoHistogram decodeNanos = new NanoHistogram();
+    private final NanoHistogram handlerNanos = new NanoHistogram();
+    private final NanoHistogram queueNanos = new NanoHistogram();
+    private final NanoHistogram taskNanos = new NanoHistogram();
+
+    PacketStats(Identifier channelId, Class<?> packetClass) {
+        this.channelId = channelId;
+        this.packetClass = packetClass;
+    }
+
+    public Identifier channelId() {
+        return channelId;
+    }
+
+    public Class<?> packetClass() {
+        return packetClass;
+    }
+
+    public long packetsSent() {
+        return packetsSent.sum();
+    }
+
+    /**
+     * Gets the number of bytes written by this packet type's encoder.
+     * Packets that never leave the JVM, such as in singleplayer, are not encoded and do not count.
+     *
+     * @return the encoded byte count
+     */
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long packetsReceived() {
+        return packetsReceived.sum();
+    }
+
+    /**
+     * Gets the number of bytes read by this packet type's decoder.
+     *
+     * @return the decoded byte count
+     */
+    public long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * Time spent in the packet encoder.
+     *
+     * @return the encode histogram
+     */
+    public NanoHistogram encodeNanos() {
+        return encodeNanos;
+    }
+
+    /**
+     * Time spent in the packet decoder.
+     *
+     * @return the decode histogram
+     */
+    public NanoHistogram decodeNanos() {
+        return decodeNanos;
+    }
+
+    /**
+     * Time spent in the packet handler itself, one sample per packet. Work the handler scheduled with
+     * {@link PacketContext#execute(Runnable)} is measured by {@link #taskNanos()} instead.
+     *
+     * @return the handler histogram
+     */
+    public NanoHistogram handlerNanos() {
+        return handlerNanos;
+    }
+
+    /**
+     * Time between a handler calling {@link PacketContext#execute(Runnable)} and the task starting on the game thread.
+     *
+     * @return the queue histogram
+     */
+    public NanoHistogram queueNanos() {
+        return queueNanos;
+    }
+
+    /**
+     * Time spent running tasks a handler scheduled with {@link PacketContext#execute(Runnable)}, once they start
+     * on the game thread.
+     *
+     * @return the task histogram
+     */
+    public NanoHistogram taskNanos() {
+        return taskNanos;
+    }
+
+    void recordSent() {
+        packetsSent.increment();
+    }
+
+    void recordEncode(long nanos, int bytes) {
+        encodeNanos.record(nanos);
+        bytesSent.add(bytes);
+    }
+
+    void recordDecode(long nanos, int bytes) {
+        decodeNanos.record(nanos);
+        bytesReceived.add(bytes);
+    }
+
+    void recordReceived() {
+        packetsReceived.increment();
+    }
+
+    void recordHandler(long nanos) {
+        handlerNanos.record(nanos);
+    }
+
+    void recordQueue(long nanos) {
+        queueNanos.record(nanos);
+    }
+
+    void recordTask(long nanos) {
+        taskNanos.record(nanos);
+    }
+
+    void reset() {
+        packetsSent.reset();
+        bytesSent.reset();
+        packetsReceived.reset();
+        bytesReceived.reset();
+        encodeNanos.reset();
+        decodeNanos.reset();
+        handlerNanos.reset();
+        queueNanos.reset();
+        taskNanos.reset();
+    }
+}
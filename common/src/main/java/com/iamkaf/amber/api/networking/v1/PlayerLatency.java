@@ -0,0 +1,62 @@
+package com.iamkaf.amber.api.networking.v1;
+
+import com.iamkaf.amber.networking.v1.AmberNetworking;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Server-side round trip time measurements for connected players.
+ * <p>
+ * Amber periodically probes every player with a ping packet, spreading the probes across ticks,
+ * and keeps a rolling window of round trips per player.
+ *
+ * <pre>
+ * LatencyStats stats = PlayerLatency.getStats(player);
+ * if (stats != null) {
+ *     int ticksBehind = (int) (stats.smoothMillis() / 2 / 50);
+ * }
+ * </pre>
+ */
+public final class PlayerLatency {
+    private PlayerLatency() {
+    }
+
+    /**
+     * Gets the rolling round trip statistics for a player.
+     *
+     * @param player the player
+     * @return the statistics, or null if no probe has completed yet
+     */
+    public static @Nullable LatencyStats getStats(ServerPlayer player) {
+        return AmberNetworking.getLatencyStats(player);
+    }
+
+    /**
+     * Gets the smoothed round trip time for a player in milliseconds.
+     *
+     * @param player the player
+     * @return the round trip time in milliseconds, or -1 if not measured yet
+     */
+    public static double getLatencyMillis(ServerPlayer player) {
+        LatencyStats stats = getStats(player);
+        return stats == null ? -1 : stats.smoothMillis();
+    }
+
+    /**
+     * Gets how many ticks pass between probes to the same player.
+     *
+     * @return the probe interval in ticks, 0 if probing is disabled
+     */
+    public static int getProbeInterval() {
+        return AmberNetworking.getProbeInterval();
+    }
+
+    /**
+     * Sets how many ticks pass between probes to the same player.
+     *
+     * @param ticks the probe interval in ticks, or 0 to disable periodic probes
+     */
+    public static void setProbeInterval(int ticks) {
+        AmberNetworking.setProbeInterval(ticks);
+    }
+}
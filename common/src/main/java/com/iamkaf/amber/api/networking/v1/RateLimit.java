@@ -0,0 +1,63 @@
+package com.iamkaf.amber.api.networking.v1;
+
+/**
+ * Token bucket rate limit applied to serverbound packets, tracked separately for each player.
+ * <p>
+ * The bucket starts full with {@code burst} tokens and refills at {@code packetsPerSecond}.
+ * Every received packet consumes one token; packets arriving on an empty bucket are violations
+ * and are handled according to the {@link Policy}.
+ *
+ * @param packetsPerSecond sustained number of packets allowed per second
+ * @param burst            maximum number of packets allowed in a burst
+ * @param policy           what to do with a player that exceeds the limit
+ */
+public record RateLimit(double packetsPerSecond, int burst, Policy policy) {
+
+    public RateLimit {
+        if (packetsPerSecond <= 0) {
+            throw new IllegalArgumentException("packetsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("policy cannot be null");
+        }
+    }
+
+    /**
+     * Creates a rate limit that drops packets over the limit.
+     *
+     * @param packetsPerSecond sustained number of packets allowed per second
+     * @param burst            maximum number of packets allowed in a burst
+     * @return a new rate limit
+     */
+    public static RateLimit of(double packetsPerSecond, int burst) {
+        return new RateLimit(packetsPerSecond, burst, Policy.DROP);
+    }
+
+    /**
+     * Returns a copy of this rate limit using the given violation policy.
+     *
+     * @param policy the violation policy
+     * @return a new rate limit
+     */
+    public RateLimit withPolicy(Policy policy) {
+        return new RateLimit(packetsPerSecond, burst, policy);
+    }
+
+    /**
+     * What happens to a packet, and its sender, when a rate limit is exceeded.
+     */
+    public enum Policy {
+        /**
+         * Silently drop the packet without calling its handler.
+         */
+        DROP,
+
+        /**
+         * Drop the packet and disconnect the sender.
+         */
+        KICK
+    }
+}
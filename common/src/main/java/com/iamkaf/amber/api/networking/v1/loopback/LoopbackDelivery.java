@@ -0,0 +1,22 @@
+package com.iamkaf.amber.api.networking.v1.loopback;
+
+import net.minecraft.resources.Identifier;
+
+/**
+ * An encoded packet in flight on a {@link LoopbackNetwork}.
+ */
+record LoopbackDelivery(
+        long deliverAt,
+        long sequence,
+        LoopbackEndpoint from,
+        LoopbackEndpoint to,
+        Identifier channelId,
+        Class<?> packetClass,
+        byte[] payload
+) implements Comparable<LoopbackDelivery> {
+    @Override
+    public int compareTo(LoopbackDelivery other) {
+        int byTime = Long.compare(deliverAt, other.deliverAt);
+        return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+    }
+}
@@ -0,0 +1,91 @@
+package com.iamkaf.amber.api.networking.v1.loopback;
+
+import net.minecraft.resources.Identifier;
+import net.minecraft.world.entity.player.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One side of a {@link LoopbackNetwork}: either the server or a simulated client.
+ */
+public final class LoopbackEndpoint {
+    private final LoopbackNetwork network;
+    private final String name;
+    private final boolean client;
+    private final Map<Identifier, LoopbackNetworkChannel> channels = new HashMap<>();
+    private final Map<LoopbackEndpoint, Link> links = new HashMap<>();
+    private @Nullable Player player;
+    private boolean connected = true;
+
+    LoopbackEndpoint(LoopbackNetwork network, String name, boolean client) {
+        this.network = network;
+        this.name = name;
+        this.client = client;
+    }
+
+    /**
+     * Gets this endpoint's view of a channel. Registrations are shared by every endpoint,
+     * but sends are made from this endpoint.
+     *
+     * @param channelId the channel identifier
+     * @return the channel
+     */
+    public LoopbackNetworkChannel channel(Identifier channelId) {
+        return channels.computeIfAbsent(channelId, id -> new LoopbackNetworkChannel(network, this, id));
+    }
+
+    /**
+     * Associates a player with this client endpoint. Packets sent with
+     * {@code sendToPlayer} to this player are routed here, and server handlers see it as the sender.
+     * Not needed for headless use, where handlers simply receive a null player.
+     *
+     * @param player the player to bind
+     * @return this endpoint
+     */
+    public LoopbackEndpoint bind(@Nullable Player player) {
+        if (!client) {
+            throw new IllegalStateException("Only client endpoints can be bound to a player");
+        }
+        this.player = player;
+        return this;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isClient() {
+        return client;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Nullable Player player() {
+        return player;
+    }
+
+    void disconnect() {
+        connected = false;
+    }
+
+    Link linkTo(LoopbackEndpoint other) {
+        return links.computeIfAbsent(other, key -> new Link());
+    }
+
+    @Override
+    public String toString() {
+        return (client ? "client:" : "") + name;
+    }
+
+    /**
+     * Per-direction link state used for bandwidth and ordering.
+     */
+    static final class Link {
+        long busyUntil;
+        long lastDelivery;
+    }
+}
@@ -0,0 +1,348 @@
+package com.iamkaf.amber.api.networking.v1.loopback;
+
+import net.minecraft.resources.Identifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simulated network connecting one server endpoint and any number of client endpoints inside a single JVM.
+ * <p>
+ * Packets are really encoded into and decoded from {@code FriendlyByteBuf}s, then delivered according to a
+ * simulated clock with configurable latency, jitter, bandwidth and loss. No Minecraft client, server or
+ * platform networking service is needed, which makes this suitable for JUnit tests and JMH benchmarks.
+ * <p>
+ * Like Minecraft's TCP connections, each link delivers packets in order. Lost packets are retransmitted
+ * after {@link Builder#retransmitDelay}, unless {@link Builder#dropLostPackets} is set.
+ *
+ * <pre>
+ * LoopbackNetwork network = LoopbackNetwork.builder()
+ *         .latency(50, TimeUnit.MILLISECONDS)
+ *         .jitter(10, TimeUnit.MILLISECONDS)
+ *         .bandwidth(1_000_000)
+ *         .lossRate(0.01)
+ *         .build();
+ * LoopbackEndpoint client = network.connect("client-1");
+ *
+ * LoopbackNetworkChannel server = network.channel(channelId);
+ * server.register(MyPacket.class, MyPacket::encode, MyPacket::decode, MyPacket::handle);
+ *
+ * client.channel(channelId).sendToServer(new MyPacket());
+ * network.advance(100, TimeUnit.MILLISECONDS);
+ * </pre>
+ * <p>
+ * Instances are not thread safe; drive them from a single thread.
+ */
+public final class LoopbackNetwork {
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final long bytesPerSecond;
+    private final double lossRate;
+    private final long retransmitDelayNanos;
+    private final boolean dropLostPackets;
+    private final Random random;
+
+    private final LoopbackEndpoint server;
+    private final List<LoopbackEndpoint> clients = new ArrayList<>();
+    private final LoopbackRegistry registry = new LoopbackRegistry();
+    private final PriorityQueue<LoopbackDelivery> inFlight = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+
+    private long packetsSent;
+    private long packetsDelivered;
+    private long packetsLost;
+    private long bytesSent;
+
+    private LoopbackNetwork(Builder builder) {
+        this.latencyNanos = builder.latencyNanos;
+        this.jitterNanos = builder.jitterNanos;
+        this.bytesPerSecond = builder.bytesPerSecond;
+        this.lossRate = builder.lossRate;
+        this.retransmitDelayNanos = builder.retransmitDelayNanos;
+        this.dropLostPackets = builder.dropLostPackets;
+        this.random = new Random(builder.seed);
+        this.server = new LoopbackEndpoint(this, "server", false);
+    }
+
+    /**
+     * Creates a builder for a new simulated network. By default the network is perfect:
+     * no latency, no jitter, unlimited bandwidth and no loss.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the server endpoint.
+     *
+     * @return the server endpoint
+     */
+    public LoopbackEndpoint server() {
+        return server;
+    }
+
+    /**
+     * Connects a new simulated client.
+     *
+     * @param name a name for the client, used in logs and {@code toString}
+     * @return the client endpoint
+     */
+    public LoopbackEndpoint connect(String name) {
+        LoopbackEndpoint client = new LoopbackEndpoint(this, name, true);
+        clients.add(client);
+        return client;
+    }
+
+    /**
+     * Disconnects a simulated client. Packets still in flight to or from it are discarded on delivery.
+     *
+     * @param client the client endpoint
+     */
+    public void disconnect(LoopbackEndpoint client) {
+        clients.remove(client);
+        client.disconnect();
+    }
+
+    /**
+     * Gets all connected clients.
+     *
+     * @return an unmodifiable view of the connected clients
+     */
+    public List<LoopbackEndpoint> clients() {
+        return Collections.unmodifiableList(clients);
+    }
+
+    /**
+     * Gets the server side view of a channel. Packet registrations are shared by every endpoint.
+     *
+     * @param channelId the channel identifier
+     * @return the server side channel
+     */
+    public LoopbackNetworkChannel channel(Identifier channelId) {
+        return server.channel(channelId);
+    }
+
+    /**
+     * Advances the simulated clock, delivering every packet due by the new time.
+     *
+     * @param duration how far to advance
+     * @param unit the unit of {@code duration}
+     * @return the number of packets delivered
+     */
+    public int advance(long duration, TimeUnit unit) {
+        return advanceTo(now + unit.toNanos(duration));
+    }
+
+    /**
+     * Delivers every packet in flight, advancing the clock as far as needed.
+     * Packets sent by handlers during delivery are delivered as well.
+     *
+     * @return the number of packets delivered
+     */
+    public int flush() {
+        int delivered = 0;
+        while (!inFlight.isEmpty()) {
+            delivered += advanceTo(Math.max(now, inFlight.peek().deliverAt()));
+        }
+        return delivered;
+    }
+
+    /**
+     * Gets the current simulated time.
+     *
+     * @return the simulated time in nanoseconds since the network was created
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Gets the number of packets currently in flight.
+     *
+     * @return the in-flight packet count
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public long packetsSent() {
+        return packetsSent;
+    }
+
+    public long packetsDelivered() {
+        return packetsDelivered;
+    }
+
+    /**
+     * Gets the number of loss events. With retransmission enabled, lost packets are still delivered later.
+     *
+     * @return the loss count
+     */
+    public long packetsLost() {
+        return packetsLost;
+    }
+
+    public long bytesSent() {
+        return bytesSent;
+    }
+
+    LoopbackRegistry registry() {
+        return registry;
+    }
+
+    LoopbackEndpoint findClient(Object player) {
+        for (LoopbackEndpoint client : clients) {
+            if (client.player() == player) {
+                return client;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Schedules an encoded packet on the link between two endpoints.
+     */
+    void transmit(LoopbackEndpoint from, LoopbackEndpoint to, Identifier channelId, Class<?> packetClass, byte[] payload) {
+        packetsSent++;
+        bytesSent += payload.length;
+
+        // The link is busy until the previous packet has been serialized onto the wire
+        LoopbackEndpoint.Link link = from.linkTo(to);
+        long start = Math.max(now, link.busyUntil);
+        long transmission = bytesPerSecond > 0 ? payload.length * 1_000_000_000L / bytesPerSecond : 0L;
+        link.busyUntil = start + transmission;
+
+        long deliverAt = link.busyUntil + latencyNanos + jitter();
+        while (lossRate > 0 && random.nextDouble() < lossRate) {
+            packetsLost++;
+            if (dropLostPackets) {
+                return;
+            }
+            deliverAt += retransmitDelayNanos;
+        }
+
+        if (!dropLostPackets) {
+            // In-order delivery, as on a TCP connection
+            deliverAt = Math.max(deliverAt, link.lastDelivery);
+            link.lastDelivery = deliverAt;
+        }
+        inFlight.add(new LoopbackDelivery(deliverAt, sequence++, from, to, channelId, packetClass, payload));
+    }
+
+    private long jitter() {
+        if (jitterNanos == 0) {
+            return 0;
+        }
+        return (long) ((random.nextDouble() * 2D - 1D) * jitterNanos);
+    }
+
+    private int advanceTo(long target) {
+        int delivered = 0;
+        while (!inFlight.isEmpty() && inFlight.peek().deliverAt() <= target) {
+            LoopbackDelivery delivery = inFlight.poll();
+            now = Math.max(now, delivery.deliverAt());
+            if (delivery.from().isConnected() && delivery.to().isConnected()) {
+                registry.deliver(delivery);
+                packetsDelivered++;
+                delivered++;
+            }
+        }
+        now = Math.max(now, target);
+        return delivered;
+    }
+
+    /**
+     * Builder for {@link LoopbackNetwork}.
+     */
+    public static final class Builder {
+        private long latencyNanos;
+        private long jitterNanos;
+        private long bytesPerSecond;
+        private double lossRate;
+        private long retransmitDelayNanos = TimeUnit.MILLISECONDS.toNanos(200);
+        private boolean dropLostPackets;
+        private long seed = 0L;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the one-way latency of every link.
+         */
+        public Builder latency(long duration, TimeUnit unit) {
+            this.latencyNanos = requireNonNegative(unit.toNanos(duration), "latency");
+            return this;
+        }
+
+        /**
+         * Sets the maximum random deviation added to or subtracted from the latency of each packet.
+         */
+        public Builder jitter(long duration, TimeUnit unit) {
+            this.jitterNanos = requireNonNegative(unit.toNanos(duration), "jitter");
+            return this;
+        }
+
+        /**
+         * Caps the bandwidth of each link in each direction.
+         *
+         * @param bytesPerSecond the cap in bytes per second, or 0 for unlimited
+         */
+        public Builder bandwidth(long bytesPerSecond) {
+            this.bytesPerSecond = requireNonNegative(bytesPerSecond, "bandwidth");
+            return this;
+        }
+
+        /**
+         * Sets the probability, between 0 and 1, of each transmission attempt being lost.
+         */
+        public Builder lossRate(double lossRate) {
+            if (lossRate < 0 || lossRate >= 1) {
+                throw new IllegalArgumentException("lossRate must be in [0, 1)");
+            }
+            this.lossRate = lossRate;
+            return this;
+        }
+
+        /**
+         * Sets how long a lost packet takes to be retransmitted.
+         */
+        public Builder retransmitDelay(long duration, TimeUnit unit) {
+            this.retransmitDelayNanos = requireNonNegative(unit.toNanos(duration), "retransmitDelay");
+            return this;
+        }
+
+        /**
+         * Drops lost packets instead of retransmitting them, and allows jitter to reorder packets.
+         */
+        public Builder dropLostPackets(boolean dropLostPackets) {
+            this.dropLostPackets = dropLostPackets;
+            return this;
+        }
+
+        /**
+         * Sets the seed used for jitter and loss, so runs are reproducible.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public LoopbackNetwork build() {
+            return new LoopbackNetwork(this);
+        }
+
+        private static long requireNonNegative(long value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " cannot be negative");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.iamkaf.amber.api.networking.v1.loopback;
+
+import com.iamkaf.amber.api.networking.v1.Packet;
+import com.iamkaf.amber.api.networking.v1.PacketDecoder;
+import com.iamkaf.amber.api.networking.v1.PacketEncoder;
+import com.iamkaf.amber.api.networking.v1.PacketHandler;
+import com.iamkaf.amber.api.networking.v1.PlatformNetworkChannel;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.level.ServerPlayer;
+
+/**
+ * {@link PlatformNetworkChannel} backed by a {@link LoopbackNetwork}, as seen from one endpoint.
+ * <p>
+ * Packets are encoded when sent and decoded when the simulated network delivers them.
+ * Encoders that need registry access, such as item stack codecs, are not supported since
+ * plain {@code FriendlyByteBuf}s are used.
+ */
+public final class LoopbackNetworkChannel implements PlatformNetworkChannel {
+    private final LoopbackNetwork network;
+    private final LoopbackEndpoint endpoint;
+    private final Identifier channelId;
+
+    LoopbackNetworkChannel(LoopbackNetwork network, LoopbackEndpoint endpoint, Identifier channelId) {
+        this.network = network;
+        this.endpoint = endpoint;
+        this.channelId = channelId;
+    }
+
+    @Override
+    public <T extends Packet<T>> void register(
+            Class<T> packetClass,
+            PacketEncoder<T> encoder,
+            PacketDecoder<T> decoder,
+            PacketHandler<T> handler
+    ) {
+        network.registry().register(channelId, packetClass, encoder, decoder, handler);
+    }
+
+    @Override
+    public <T extends Packet<T>> void sendToServer(T packet) {
+        if (!endpoint.isClient()) {
+            throw new IllegalStateException("sendToServer can only be called from a client endpoint");
+        }
+        transmit(packet, network.server());
+    }
+
+    @Override
+    public <T extends Packet<T>> void sendToPlayer(T packet, ServerPlayer player) {
+        LoopbackEndpoint client = network.findClient(player);
+        if (client == null) {
+            throw new IllegalArgumentException("No loopback client is bound to player " + player);
+        }
+        sendToClient(packet, client);
+    }
+
+    /**
+     * Sends a packet from the server to a client endpoint, without needing a player.
+     *
+     * @param <T> the packet type
+     * @param packet the packet to send
+     * @param client the target client endpoint
+     */
+    public <T extends Packet<T>> void sendToClient(T packet, LoopbackEndpoint client) {
+        if (endpoint.isClient()) {
+            throw new IllegalStateException("sendToClient can only be called from the server endpoint");
+        }
+        transmit(packet, client);
+    }
+
+    @Override
+    public <T extends Packet<T>> void sendToAllPlayers(T packet) {
+        for (LoopbackEndpoint client : network.clients()) {
+            sendToClient(packet, client);
+        }
+    }
+
+    @Override
+    public <T extends Packet<T>> void sendToAllPlayersExcept(T packet, ServerPlayer except) {
+        for (LoopbackEndpoint client : network.clients()) {
+            if (client.player() != except) {
+                sendToClient(packet, client);
+            }
+        }
+    }
+
+    /**
+     * Gets the endpoint this channel sends from.
+     *
+     * @return the endpoint
+     */
+    public LoopbackEndpoint endpoint() {
+        return endpoint;
+    }
+
+    private <T extends Packet<T>> void transmit(T packet, LoopbackEndpoint to) {
+        byte[] payload = network.registry().encode(channelId, packet);
+        network.transmit(endpoint, to, channelId, packet.getClass(), payload);
+    }
+}
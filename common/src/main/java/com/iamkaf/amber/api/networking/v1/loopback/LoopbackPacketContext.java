@@ -0,0 +1,34 @@
+package com.iamkaf.amber.api.networking.v1.loopback;
+
+import com.iamkaf.amber.api.networking.v1.PacketContext;
+import net.minecraft.world.entity.player.Player;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Packet context for loopback deliveries.
+ * Tasks run immediately, since the simulated network is driven from a single thread.
+ */
+final class LoopbackPacketContext implements PacketContext {
+    private final boolean clientSide;
+    private final @Nullable Player player;
+
+    LoopbackPacketContext(boolean clientSide, @Nullable Player player) {
+        this.clientSide = clientSide;
+        this.player = player;
+    }
+
+    @Override
+    public boolean isClientSide() {
+        return clientSide;
+    }
+
+    @Override
+    public @Nullable Player getPlayer() {
+        return player;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        task.run();
+    }
+}
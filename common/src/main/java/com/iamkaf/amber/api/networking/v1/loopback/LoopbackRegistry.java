@@ -0,0 +1,80 @@
+package com.iamkaf.amber.api.networking.v1.loopback;
+
+import com.iamkaf.amber.Constants;
+import com.iamkaf.amber.api.networking.v1.Packet;
+import com.iamkaf.amber.api.networking.v1.PacketDecoder;
+import com.iamkaf.amber.api.networking.v1.PacketEncoder;
+import com.iamkaf.amber.api.networking.v1.PacketHandler;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.Identifier;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Packet registrations shared by every endpoint of a {@link LoopbackNetwork}.
+ */
+final class LoopbackRegistry {
+    private final Map<Identifier, Map<Class<?>, Registration<?>>> channels = new HashMap<>();
+
+    <T extends Packet<T>> void register(
+            Identifier channelId,
+            Class<T> packetClass,
+            PacketEncoder<T> encoder,
+            PacketDecoder<T> decoder,
+            PacketHandler<T> handler
+    ) {
+        channels.computeIfAbsent(channelId, id -> new HashMap<>())
+                .put(packetClass, new Registration<>(encoder, decoder, handler));
+    }
+
+    <T extends Packet<T>> byte[] encode(Identifier channelId, T packet) {
+        @SuppressWarnings("unchecked")
+        Registration<T> registration = (Registration<T>) lookup(channelId, packet.getClass());
+        FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer());
+        try {
+            registration.encoder.encode(packet, buffer);
+            byte[] payload = new byte[buffer.readableBytes()];
+            buffer.readBytes(payload);
+            return payload;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    void deliver(LoopbackDelivery delivery) {
+        Registration<?> registration = lookup(delivery.channelId(), delivery.packetClass());
+        boolean clientSide = delivery.to().isClient();
+        LoopbackPacketContext context = new LoopbackPacketContext(
+                clientSide,
+                clientSide ? delivery.to().player() : delivery.from().player()
+        );
+        try {
+            registration.decodeAndHandle(new FriendlyByteBuf(Unpooled.wrappedBuffer(delivery.payload())), context);
+        } catch (RuntimeException e) {
+            Constants.LOG.error("Loopback delivery of {} to {} failed", delivery.packetClass().getSimpleName(), delivery.to(), e);
+            throw e;
+        }
+    }
+
+    private Registration<?> lookup(Identifier channelId, Class<?> packetClass) {
+        Map<Class<?>, Registration<?>> channel = channels.get(channelId);
+        Registration<?> registration = channel == null ? null : channel.get(packetClass);
+        if (registration == null) {
+            throw new IllegalArgumentException("Packet not registered: " + packetClass.getName());
+        }
+        return registration;
+    }
+
+    private record Registration<T extends Packet<T>>(
+            PacketEncoder<T> encoder,
+            PacketDecoder<T> decoder,
+            PacketHandler<T> handler
+    ) {
+        private void decodeAndHandle(FriendlyByteBuf buffer, LoopbackPacketContext context) {
+            T packet = decoder.decode(buffer);
+            handler.handle(packet, context);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+//? if >=1.18.2
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.biome.Biome;
+//? if >=1.18.2
+import net.minecraft.world.level.biome.BiomeManager;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An opt-in, bounded per-level cache of biome lookups, for mods that check the biome of every entity every tick.
+ * <p>
+ * On 1.18.2+ the biome each 4x4x4 block quart stores is cached, keyed by packed quart coordinates, and the
+ * level's own fuzzed zoom is applied per block on top of it, so results match the level's lookup exactly.
+ * Older versions cache the biome of each block. Entries are evicted with the clock algorithm once a level's
+ * cache is full.
+ * <p>
+ * Once enabled, {@link com.iamkaf.amber.api.functions.v1.WorldFunctions#getBiomeAtPosition} and
+ * {@link com.iamkaf.amber.api.functions.v1.WorldFunctions#hasPrecipitation} read through this cache.
+ * Caches are dropped when their level unloads. Lookups in chunks that are not loaded are answered but not
+ * cached, since the level reports a fallback biome for them. Biome changes are not detected: after
+ * {@code /fillbiome} or any other change to the biomes of loaded chunks, call
+ * {@link #invalidate(Level, int, int)} for the affected chunks or {@link #invalidate(Level)}.
+ * <p>
+ * Each level's cache must only be used from that level's thread.
+ */
+public final class BiomeCache {
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static final Map<Level, LevelCache> LEVELS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static volatile boolean enabled = false;
+    private static volatile int capacity = 16384;
+
+    private BiomeCache() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Enables the cache for {@code WorldFunctions} biome lookups. Safe to call multiple times.
+     */
+    public static void enable() {
+        registerListeners();
+        enabled = true;
+    }
+
+    /**
+     * Disables the cache and frees its memory.
+     */
+    public static void disable() {
+        enabled = false;
+        LEVELS.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the number of quarts cached per level. Applies to caches created afterwards.
+     *
+     * @param capacity the number of entries, at least 64
+     */
+    public static void setCapacity(int capacity) {
+        if (capacity < 64) {
+            throw new IllegalArgumentException("capacity must be at least 64");
+        }
+        BiomeCache.capacity = capacity;
+    }
+
+    /**
+     * Gets the biome at a position, as {@link Level#getBiome} would.
+     *
+     * @param level    the level
+     * @param position the position
+     * @return the biome
+     */
+    //? if >=1.18.2
+    public static Holder<Biome> getBiome(Level level, BlockPos position) {
+    //? if <1.18.2
+    /*public static Biome getBiome(Level level, BlockPos position) {*/
+        LevelCache cache = cache(level);
+        //? if >=1.18.2
+        return cache.zoom.getBiome(position);
+        //? if <1.18.2 {
+        /*long key = position.asLong();
+        Biome biome = (Biome) cache.get(key);
+        if (biome == null) {
+            biome = WorldCompat.biome(level, position);
+            if (isLoaded(level, WorldCompat.blockX(position) >> 4, WorldCompat.blockZ(position) >> 4)) {
+                cache.put(key, biome);
+            }
+        }
+        return biome;
+        *///?}
+    }
+
+    /**
+     * Fills {@code out} with the biome of every quart between two corners, inclusive: on 1.18.2+ the biome the
+     * quart stores, without the per-block zoom, and on older versions the biome at the quart's center.
+     * Entries are ordered by X, then Z, then Y: the quart at offset {@code (x, y, z)} from the lowest
+     * corner's quart is at index {@code x + sizeX * (z + sizeZ * y)}, where sizes are in quarts.
+     *
+     * @param level the level
+     * @param from  one corner of the region
+     * @param to    the opposite corner of the region
+     * @param out   the array to fill, which must hold at least as many entries as the region has quarts
+     * @return the number of entries written
+     */
+    //? if >=1.18.2
+    public static int getBiomes(Level level, BlockPos from, BlockPos to, Holder<Biome>[] out) {
+    //? if <1.18.2
+    /*public static int getBiomes(Level level, BlockPos from, BlockPos to, Biome[] out) {*/
+        int minX = Math.min(WorldCompat.blockX(from), WorldCompat.blockX(to)) >> 2;
+        int minY = Math.min(WorldCompat.blockY(from), WorldCompat.blockY(to)) >> 2;
+        int minZ = Math.min(WorldCompat.blockZ(from), WorldCompat.blockZ(to)) >> 2;
+        int maxX = Math.max(WorldCompat.blockX(from), WorldCompat.blockX(to)) >> 2;
+        int maxY = Math.max(WorldCompat.blockY(from), WorldCompat.blockY(to)) >> 2;
+        int maxZ = Math.max(WorldCompat.blockZ(from), WorldCompat.blockZ(to)) >> 2;
+        long count = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (count > out.length) {
+            throw new IllegalArgumentException("Region has " + count + " quarts but the array only holds " + out.length);
+        }
+
+        LevelCache cache = cache(level);
+        int index = 0;
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    //? if >=1.18.2
+                    out[index++] = cache.noise(x, y, z);
+                    //? if <1.18.2
+                    /*out[index++] = getBiome(level, new BlockPos((x << 2) + 2, (y << 2) + 2, (z << 2) + 2));*/
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drops cached biomes in a chunk column, for example after changing its biomes.
+     *
+     * @param level  the level
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     */
+    public static void invalidate(Level level, int chunkX, int chunkZ) {
+        LevelCache cache = LEVELS.get(level);
+        if (cache != null) {
+            cache.invalidateColumn(chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Drops every cached biome of a level.
+     */
+    public static void invalidate(Level level) {
+        LEVELS.remove(level);
+    }
+
+    private static LevelCache cache(Level level) {
+        LevelCache cache = LEVELS.get(level);
+        if (cache == null) {
+            registerListeners();
+            cache = new LevelCache(level, capacity);
+            LEVELS.put(level, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Checks whether a chunk is loaded, since unloaded chunks report a fallback biome that must not be cached.
+     */
+    private static boolean isLoaded(Level level, int chunkX, int chunkZ) {
+        return level.getChunkSource().getChunkNow(chunkX, chunkZ) != null;
+    }
+
+    private static void registerListeners() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            WorldEvents.WORLD_UNLOAD.register((server, level) -> LEVELS.remove(level));
+        }
+    }
+
+    /**
+     * A fixed-size table of cached biomes with clock eviction, keyed by {@link BlockPos#asLong} of quart
+     * coordinates on 1.18.2+ and of block coordinates before.
+     */
+    private static final class LevelCache {
+        //? if >=1.18.2
+        private static final int CHUNK_SHIFT = 2;
+        //? if <1.18.2
+        /*private static final int CHUNK_SHIFT = 4;*/
+
+        //? if >=1.18.2 {
+        // Held weakly, since the cache is a value of a weak map keyed by the level
+        private final WeakReference<Level> level;
+        private final BiomeManager zoom;
+        //?}
+        private final Long2IntOpenHashMap slots;
+        private final long[] keys;
+        private final Object[] values;
+        private final boolean[] referenced;
+        private int size;
+        private int hand;
+
+        private LevelCache(Level level, int capacity) {
+            this.slots = new Long2IntOpenHashMap(capacity);
+            this.slots.defaultReturnValue(-1);
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.referenced = new boolean[capacity];
+            //? if >=1.18.2 {
+            this.level = new WeakReference<>(level);
+            this.zoom = level.getBiomeManager().withDifferentSource(this::noise);
+            //?}
+        }
+
+        //? if >=1.18.2 {
+        /**
+         * Gets the biome a quart stores, which the zoom reads for the quarts around each looked up block.
+         */
+        @SuppressWarnings("unchecked")
+        private Holder<Biome> noise(int quartX, int quartY, int quartZ) {
+            long key = BlockPos.asLong(quartX, quartY, quartZ);
+            Object biome = get(key);
+            if (biome == null) {
+                Level level = this.level.get();
+                biome = level.getNoiseBiome(quartX, quartY, quartZ);
+                if (isLoaded(level, quartX >> 2, quartZ >> 2)) {
+                    put(key, biome);
+                }
+            }
+            return (Holder<Biome>) biome;
+        }
+        //?}
+
+        private Object get(long key) {
+            int slot = slots.get(key);
+            if (slot < 0) {
+                return null;
+            }
+            referenced[slot] = true;
+            return values[slot];
+        }
+
+        private void put(long key, Object value) {
+            int slot;
+            if (size < values.length) {
+                slot = size++;
+            } else {
+                // Sweep past recently used entries, giving each a second chance
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = (hand + 1) % values.length;
+                }
+                slot = hand;
+                hand = (hand + 1) % values.length;
+                if (values[slot] != null) {
+                    slots.remove(keys[slot]);
+                }
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            referenced[slot] = false;
+            slots.put(key, slot);
+        }
+
+        private void invalidateColumn(int chunkX, int chunkZ) {
+            for (int slot = 0; slot < size; slot++) {
+                if (values[slot] == null) {
+                    continue;
+                }
+                long key = keys[slot];
+                if (BlockPos.getX(key) >> CHUNK_SHIFT == chunkX && BlockPos.getZ(key) >> CHUNK_SHIFT == chunkZ) {
+                    // Forget the key, so evicting the freed slot later cannot remove a newer entry for it
+                    slots.remove(key);
+                    keys[slot] = 0L;
+                    values[slot] = null;
+                    referenced[slot] = false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.api.event.v1.events.common.ServerTickEvents;
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects block changes and applies them together with as few updates as possible.
+ * <p>
+ * Placing blocks one {@code setBlock} call at a time triggers neighbor and shape updates for every block,
+ * interleaved with the placement of the rest of the edit. A batch applies its changes chunk section by
+ * chunk section with only the client sync flag set, then runs one shape update pass over every changed
+ * block, so fences, panes, walls, redstone wire and stairs connect to their new neighbors inside and outside
+ * the edit, and one neighbor update pass for the blocks on the edge of the edit. Unchanged blocks are
+ * skipped entirely. Client sync is already grouped per section by the level, and lighting is queued by the
+ * level as blocks change.
+ *
+ * <pre>
+ * BlockBatch batch = WorldFunctions.batchEdit(level);
+ * for (BlockPos pos : positions) {
+ *     batch.set(pos, Blocks.STONE.defaultBlockState());
+ * }
+ * batch.applyOverTicks(4096).thenAccept(changed -> ...);
+ * </pre>
+ * <p>
+ * Batches must be built and applied on the level's thread.
+ */
+public final class BlockBatch {
+    private static final int UPDATE_CLIENTS = 2;
+    private static final int UPDATE_KNOWN_SHAPE = 16;
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static final List<Task> RUNNING = new ArrayList<>();
+
+    private final Level level;
+    private final Long2ObjectOpenHashMap<BlockState> changes = new Long2ObjectOpenHashMap<>();
+    private boolean updateNeighbors = true;
+    private boolean applied;
+
+    private BlockBatch(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Creates an empty batch for a level.
+     *
+     * @param level the level to edit
+     * @return the batch
+     */
+    public static BlockBatch create(Level level) {
+        return new BlockBatch(level);
+    }
+
+    /**
+     * Queues a block change, replacing any earlier change at the same position.
+     *
+     * @return this batch
+     */
+    public BlockBatch set(BlockPos position, BlockState state) {
+        return set(position.asLong(), state);
+    }
+
+    /**
+     * Queues a block change at a {@linkplain BlockPos#asLong packed position}.
+     *
+     * @return this batch
+     */
+    public BlockBatch set(long packedPosition, BlockState state) {
+        checkNotApplied();
+        changes.put(packedPosition, state);
+        return this;
+    }
+
+    /**
+     * Queues the same block change at many {@linkplain BlockPos#asLong packed positions}.
+     *
+     * @param packedPositions the positions
+     * @param count           how many entries of {@code packedPositions} to use
+     * @param state           the state to set
+     * @return this batch
+     */
+    public BlockBatch setAll(long[] packedPositions, int count, BlockState state) {
+        checkNotApplied();
+        for (int i = 0; i < count; i++) {
+            changes.put(packedPositions[i], state);
+        }
+        return this;
+    }
+
+    /**
+     * Queues the removal of a block, replacing it with air.
+     *
+     * @return this batch
+     */
+    public BlockBatch remove(BlockPos position) {
+        return set(position, AIR);
+    }
+
+    /**
+     * Sets whether blocks on the edge of the edit notify their neighbors once the edit is applied.
+     * Enabled by default. Disable it for edits that should not disturb surrounding redstone or physics.
+     * Shape updates always run, so connected blocks still match their neighbors.
+     *
+     * @return this batch
+     */
+    public BlockBatch updateNeighbors(boolean updateNeighbors) {
+        this.updateNeighbors = updateNeighbors;
+        return this;
+    }
+
+    /**
+     * Gets the number of queued changes.
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Applies every queued change now.
+     *
+     * @return the number of blocks that actually changed
+     */
+    public int apply() {
+        Task task = start();
+        task.run(Integer.MAX_VALUE);
+        return task.changed;
+    }
+
+    /**
+     * Applies the queued changes over several server ticks, at most {@code blocksPerTick} at a time,
+     * starting at the end of the current tick. Each slice gets its own neighbor update pass.
+     *
+     * @param blocksPerTick the maximum number of changes to apply per tick
+     * @return a future completed with the number of blocks that actually changed. If the level
+     * unloads first, it completes with the number changed so far, and if applying a slice throws,
+     * it completes exceptionally and the rest of the batch is dropped.
+     */
+    public CompletableFuture<Integer> applyOverTicks(int blocksPerTick) {
+        if (!(level instanceof ServerLevel)) {
+            throw new IllegalStateException("Batches can only be spread over ticks on a server level");
+        }
+        if (blocksPerTick <= 0) {
+            throw new IllegalArgumentException("blocksPerTick must be positive");
+        }
+        registerListeners();
+        Task task = start();
+        task.blocksPerTick = blocksPerTick;
+        RUNNING.add(task);
+        return task.future;
+    }
+
+    private Task start() {
+        checkNotApplied();
+        applied = true;
+
+        // Apply section by section, so consecutive changes hit the same chunk and section
+        long[] positions = changes.keySet().toLongArray();
+        LongArrays.quickSort(positions, (first, second) -> {
+            int compare = Integer.compare(BlockPos.getX(first) >> 4, BlockPos.getX(second) >> 4);
+            if (compare == 0) compare = Integer.compare(BlockPos.getZ(first) >> 4, BlockPos.getZ(second) >> 4);
+            if (compare == 0) compare = Integer.compare(BlockPos.getY(first) >> 4, BlockPos.getY(second) >> 4);
+            return compare != 0 ? compare : Long.compare(first, second);
+        });
+        return new Task(positions);
+    }
+
+    private void checkNotApplied() {
+        if (applied) {
+            throw new IllegalStateException("Batch has already been applied");
+        }
+    }
+
+    private static void registerListeners() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            ServerTickEvents.END_SERVER_TICK.register(() -> {
+                try {
+                    // Indexed, since completing a batch may start another
+                    for (int i = 0; i < RUNNING.size(); i++) {
+                        Task task = RUNNING.get(i);
+                        task.run(task.blocksPerTick);
+                    }
+                } finally {
+                    RUNNING.removeIf(Task::isDone);
+                }
+            });
+            WorldEvents.WORLD_UNLOAD.register((server, level) -> RUNNING.removeIf(task -> {
+                if (task.batch().level != level) {
+                    return false;
+                }
+                task.future.complete(task.changed);
+                return true;
+            }));
+        }
+    }
+
+    /**
+     * Progress through a batch's sorted positions.
+     */
+    private final class Task {
+        private final long[] positions;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private int blocksPerTick = Integer.MAX_VALUE;
+        private int next;
+        private int changed;
+
+        private Task(long[] positions) {
+            this.positions = positions;
+        }
+
+        private BlockBatch batch() {
+            return BlockBatch.this;
+        }
+
+        private boolean isDone() {
+            return next >= positions.length;
+        }
+
+        private void run(int budget) {
+            int from = next;
+            int to = (int) Math.min(positions.length, (long) from + budget);
+            List<BlockPos> changedPositions = new ArrayList<>();
+
+            try {
+                for (int i = from; i < to; i++) {
+                    long packed = positions[i];
+                    BlockPos position = BlockPos.of(packed);
+                    BlockState state = changes.get(packed);
+                    if (level.getBlockState(position) == state) {
+                        continue;
+                    }
+                    if (level.setBlock(position, state, UPDATE_CLIENTS | UPDATE_KNOWN_SHAPE)) {
+                        changed++;
+                        changedPositions.add(position);
+                    }
+                }
+                next = to;
+
+                // Every changed block may have changed the shape of its neighbors, inside the edit or not
+                for (BlockPos position : changedPositions) {
+                    level.getBlockState(position).updateNeighbourShapes(level, position, UPDATE_CLIENTS);
+                }
+                // Only blocks touching something outside the edit have neighbors that need a block update
+                if (updateNeighbors) {
+                    for (BlockPos position : changedPositions) {
+                        if (isEdge(position.asLong())) {
+                            level.updateNeighborsAt(position, level.getBlockState(position).getBlock());
+                        }
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                // Give up on the rest of the batch, so a failing slice is not retried every tick
+                next = positions.length;
+                future.completeExceptionally(e);
+                throw e;
+            }
+
+            if (isDone()) {
+                future.complete(changed);
+            }
+        }
+
+        private boolean isEdge(long packed) {
+            for (Direction direction : DIRECTIONS) {
+                if (!changes.containsKey(BlockPos.offset(packed, direction))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BlockBatch{" + WorldCompat.dimensionPath(level) + ", " + changes.size() + " changes}";
+    }
+}
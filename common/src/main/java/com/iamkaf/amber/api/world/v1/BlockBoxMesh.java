@@ -0,0 +1,356 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.AABB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Merges sets of block positions into a small number of axis-aligned boxes using greedy meshing.
+ * <p>
+ * Each box is grown along X, then Z, then Y for as long as every block it would cover is part
+ * of the set. The result is not guaranteed to be minimal, but is close for the shapes mods usually
+ * render or collide with, and is computed with bitsets over packed coordinates rather than maps of
+ * boxes.
+ * <p>
+ * Instances keep a set that can be changed incrementally. Positions are grouped into 16 block
+ * regions, and only regions changed since the last call to {@link #getBoxes()} are meshed again.
+ * Boxes never cross region borders, so an incremental mesh may hold a few more boxes than
+ * {@link #merge(Collection, BlockPos)} would produce for the same set.
+ * <p>
+ * Instances are not thread safe.
+ */
+public final class BlockBoxMesh {
+    private static final int REGION_SHIFT = 4;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int REGION_MASK = REGION_SIZE - 1;
+    private static final int REGION_VOLUME = REGION_SIZE * REGION_SIZE * REGION_SIZE;
+
+    /**
+     * Sets with a bounding volume up to this many blocks are meshed with a dense bitset,
+     * larger ones with a hash set.
+     */
+    private static final long DENSE_VOLUME_LIMIT = 1L << 26;
+    private static final int SPARSE_BITS = 21;
+    private static final long SPARSE_MASK = (1L << SPARSE_BITS) - 1;
+
+    private final Long2ObjectOpenHashMap<Region> regions = new Long2ObjectOpenHashMap<>();
+    private final List<AABB> boxes = new ArrayList<>();
+    private int size;
+    private boolean dirty;
+
+    /**
+     * Merges block positions into boxes in one pass.
+     *
+     * @param positions      the block positions to merge
+     * @param referencePoint the origin the returned boxes are relative to
+     * @return the merged boxes, relative to {@code referencePoint}
+     */
+    public static List<AABB> merge(Collection<BlockPos> positions, BlockPos referencePoint) {
+        List<AABB> result = new ArrayList<>();
+        int count = positions.size();
+        if (count == 0) {
+            return result;
+        }
+
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int[] zs = new int[count];
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        int refX = WorldCompat.blockX(referencePoint);
+        int refY = WorldCompat.blockY(referencePoint);
+        int refZ = WorldCompat.blockZ(referencePoint);
+        int i = 0;
+        for (BlockPos position : positions) {
+            int x = WorldCompat.blockX(position) - refX;
+            int y = WorldCompat.blockY(position) - refY;
+            int z = WorldCompat.blockZ(position) - refZ;
+            xs[i] = x;
+            ys[i] = y;
+            zs[i] = z;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+            i++;
+        }
+
+        long sizeX = (long) maxX - minX + 1;
+        long sizeY = (long) maxY - minY + 1;
+        long sizeZ = (long) maxZ - minZ + 1;
+        if (sizeX * sizeY * sizeZ <= DENSE_VOLUME_LIMIT) {
+            BitSet bits = new BitSet((int) (sizeX * sizeY * sizeZ));
+            for (int j = 0; j < count; j++) {
+                bits.set(denseIndex(xs[j] - minX, ys[j] - minY, zs[j] - minZ, (int) sizeX, (int) sizeZ));
+            }
+            meshDense(bits, (int) sizeX, (int) sizeY, (int) sizeZ, minX, minY, minZ, result);
+        } else {
+            if (sizeX > SPARSE_MASK || sizeY > SPARSE_MASK || sizeZ > SPARSE_MASK) {
+                throw new IllegalArgumentException("Positions span more than " + SPARSE_MASK + " blocks on one axis");
+            }
+            long[] keys = new long[count];
+            for (int j = 0; j < count; j++) {
+                keys[j] = sparseKey(xs[j] - minX, ys[j] - minY, zs[j] - minZ);
+            }
+            meshSparse(keys, minX, minY, minZ, result);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a block position to the set.
+     *
+     * @param position the position
+     * @return {@code true} if the set changed
+     */
+    public boolean add(BlockPos position) {
+        return add(WorldCompat.blockX(position), WorldCompat.blockY(position), WorldCompat.blockZ(position));
+    }
+
+    /**
+     * Adds a block position to the set.
+     *
+     * @return {@code true} if the set changed
+     */
+    public boolean add(int x, int y, int z) {
+        long key = regionKey(x >> REGION_SHIFT, y >> REGION_SHIFT, z >> REGION_SHIFT);
+        Region region = regions.get(key);
+        if (region == null) {
+            region = new Region(x & ~REGION_MASK, y & ~REGION_MASK, z & ~REGION_MASK);
+            regions.put(key, region);
+        }
+        int index = denseIndex(x & REGION_MASK, y & REGION_MASK, z & REGION_MASK, REGION_SIZE, REGION_SIZE);
+        if (region.bits.get(index)) {
+            return false;
+        }
+        region.bits.set(index);
+        region.dirty = true;
+        dirty = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes a block position from the set.
+     *
+     * @param position the position
+     * @return {@code true} if the set changed
+     */
+    public boolean remove(BlockPos position) {
+        return remove(WorldCompat.blockX(position), WorldCompat.blockY(position), WorldCompat.blockZ(position));
+    }
+
+    /**
+     * Removes a block position from the set.
+     *
+     * @return {@code true} if the set changed
+     */
+    public boolean remove(int x, int y, int z) {
+        long key = regionKey(x >> REGION_SHIFT, y >> REGION_SHIFT, z >> REGION_SHIFT);
+        Region region = regions.get(key);
+        if (region == null) {
+            return false;
+        }
+        int index = denseIndex(x & REGION_MASK, y & REGION_MASK, z & REGION_MASK, REGION_SIZE, REGION_SIZE);
+        if (!region.bits.get(index)) {
+            return false;
+        }
+        region.bits.clear(index);
+        if (region.bits.isEmpty()) {
+            regions.remove(key);
+        } else {
+            region.dirty = true;
+        }
+        dirty = true;
+        size--;
+        return true;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        Region region = regions.get(regionKey(x >> REGION_SHIFT, y >> REGION_SHIFT, z >> REGION_SHIFT));
+        return region != null && region.bits.get(denseIndex(x & REGION_MASK, y & REGION_MASK, z & REGION_MASK, REGION_SIZE, REGION_SIZE));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        regions.clear();
+        boxes.clear();
+        size = 0;
+        dirty = false;
+    }
+
+    /**
+     * Gets the boxes covering the set, in absolute block coordinates.
+     * Only regions changed since the last call are meshed again.
+     *
+     * @return an unmodifiable view of the boxes, valid until the set is next changed
+     */
+    public List<AABB> getBoxes() {
+        if (dirty) {
+            boxes.clear();
+            for (Region region : regions.values()) {
+                if (region.dirty) {
+                    region.boxes.clear();
+                    BitSet bits = (BitSet) region.bits.clone();
+                    meshDense(bits, REGION_SIZE, REGION_SIZE, REGION_SIZE, region.originX, region.originY, region.originZ, region.boxes);
+                    region.dirty = false;
+                }
+                boxes.addAll(region.boxes);
+            }
+            dirty = false;
+        }
+        return Collections.unmodifiableList(boxes);
+    }
+
+    /**
+     * Greedily meshes a dense grid indexed by {@link #denseIndex}. Clears {@code bits} as it goes.
+     */
+    private static void meshDense(BitSet bits, int sizeX, int sizeY, int sizeZ, int originX, int originY, int originZ, List<AABB> out) {
+        int layer = sizeX * sizeZ;
+        for (int start = bits.nextSetBit(0); start >= 0; start = bits.nextSetBit(start + 1)) {
+            int x = start % sizeX;
+            int z = (start / sizeX) % sizeZ;
+            int y = start / layer;
+
+            int width = Math.min(bits.nextClearBit(start), start - x + sizeX) - start;
+
+            int depth = 1;
+            while (z + depth < sizeZ && isRunSet(bits, start + depth * sizeX, width)) {
+                depth++;
+            }
+
+            int height = 1;
+            while (y + height < sizeY && isRectSet(bits, start + height * layer, width, depth, sizeX)) {
+                height++;
+            }
+
+            for (int dy = 0; dy < height; dy++) {
+                for (int dz = 0; dz < depth; dz++) {
+                    int rowStart = start + dy * layer + dz * sizeX;
+                    bits.clear(rowStart, rowStart + width);
+                }
+            }
+            out.add(new AABB(
+                    originX + x, originY + y, originZ + z,
+                    originX + x + width, originY + y + height, originZ + z + depth
+            ));
+        }
+    }
+
+    private static boolean isRunSet(BitSet bits, int from, int length) {
+        return bits.nextClearBit(from) >= from + length;
+    }
+
+    private static boolean isRectSet(BitSet bits, int from, int width, int depth, int sizeX) {
+        for (int dz = 0; dz < depth; dz++) {
+            if (!isRunSet(bits, from + dz * sizeX, width)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Greedily meshes a sparse set of {@link #sparseKey} keys, for sets spread over too large a volume for a bitset.
+     */
+    private static void meshSparse(long[] keys, int originX, int originY, int originZ, List<AABB> out) {
+        Arrays.sort(keys);
+        LongOpenHashSet remaining = new LongOpenHashSet(keys);
+        for (long key : keys) {
+            if (!remaining.contains(key)) {
+                continue;
+            }
+            int x = (int) (key & SPARSE_MASK);
+            int z = (int) ((key >>> SPARSE_BITS) & SPARSE_MASK);
+            int y = (int) (key >>> (SPARSE_BITS * 2));
+
+            int width = 1;
+            while (remaining.contains(sparseKey(x + width, y, z))) {
+                width++;
+            }
+
+            int depth = 1;
+            while (isSparseRectSet(remaining, x, y, z + depth, width, 1)) {
+                depth++;
+            }
+
+            int height = 1;
+            while (isSparseRectSet(remaining, x, y + height, z, width, depth)) {
+                height++;
+            }
+
+            for (int dy = 0; dy < height; dy++) {
+                for (int dz = 0; dz < depth; dz++) {
+                    for (int dx = 0; dx < width; dx++) {
+                        remaining.remove(sparseKey(x + dx, y + dy, z + dz));
+                    }
+                }
+            }
+            out.add(new AABB(
+                    originX + x, originY + y, originZ + z,
+                    originX + x + width, originY + y + height, originZ + z + depth
+            ));
+        }
+    }
+
+    private static boolean isSparseRectSet(LongOpenHashSet set, int x, int y, int z, int width, int depth) {
+        if (y > SPARSE_MASK || z > SPARSE_MASK) {
+            return false;
+        }
+        for (int dz = 0; dz < depth; dz++) {
+            for (int dx = 0; dx < width; dx++) {
+                if (!set.contains(sparseKey(x + dx, y, z + dz))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs non-negative offsets so that sorting keys orders them by Y, then Z, then X.
+     */
+    private static long sparseKey(int x, int y, int z) {
+        return ((long) y << (SPARSE_BITS * 2)) | ((long) z << SPARSE_BITS) | (x & SPARSE_MASK);
+    }
+
+    private static int denseIndex(int x, int y, int z, int sizeX, int sizeZ) {
+        return x + sizeX * (z + sizeZ * y);
+    }
+
+    private static long regionKey(int regionX, int regionY, int regionZ) {
+        return ((long) (regionX & 0x3FFFFF) << 42) | ((long) (regionZ & 0x3FFFFF) << 20) | (regionY & 0xFFFFF);
+    }
+
+    /**
+     * A 16 block cube of the set and its cached boxes.
+     */
+    private static final class Region {
+        private final BitSet bits = new BitSet(REGION_VOLUME);
+        private final List<AABB> boxes = new ArrayList<>();
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private boolean dirty;
+
+        private Region(int originX, int originY, int originZ) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.iamkaf.amber.api.world.v1;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A budgeted breadth-first search for connected blocks, such as an ore vein or a tree.
+ * <p>
+ * Positions are handled as {@linkplain BlockPos#asLong packed longs} throughout: the frontier is a primitive
+ * queue and visited positions live in an open-addressing hash set, so a search allocates no {@code BlockPos}
+ * objects. The search stops at a maximum block count and distance, never loads chunks, and can be run a
+ * slice at a time with {@link #run(long)} to spread large searches across ticks.
+ *
+ * <pre>
+ * BlockFloodFill vein = BlockFloodFill.builder(level, origin)
+ *         .matching(state -> state.is(Blocks.IRON_ORE))
+ *         .adjacency(BlockFloodFill.Adjacency.ALL)
+ *         .maxBlocks(64)
+ *         .build();
+ * vein.runToCompletion();
+ * WorldFunctions.batchEdit(level).setAll(vein.toArray(), vein.size(), Blocks.AIR.defaultBlockState()).apply();
+ * </pre>
+ * <p>
+ * Searches must be run on the level's thread.
+ */
+public final class BlockFloodFill {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    private final Level level;
+    private final long origin;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    private final Predicate<BlockState> filter;
+    private final int[] offsets;
+    private final int maxBlocks;
+    private final int maxDistance;
+
+    private final LongArrayFIFOQueue frontier = new LongArrayFIFOQueue();
+    private final LongOpenHashSet visited = new LongOpenHashSet();
+    private final LongArrayList found = new LongArrayList();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private long cachedChunkKey = Long.MIN_VALUE;
+    private LevelChunk cachedChunk;
+
+    private BlockFloodFill(Builder builder) {
+        this.level = builder.level;
+        this.origin = builder.origin;
+        this.originX = BlockPos.getX(origin);
+        this.originY = BlockPos.getY(origin);
+        this.originZ = BlockPos.getZ(origin);
+        this.filter = builder.filter;
+        this.offsets = builder.adjacency.offsets;
+        this.maxBlocks = builder.maxBlocks;
+        this.maxDistance = builder.maxDistance;
+
+        visited.add(origin);
+        frontier.enqueue(origin);
+        if (filter.test(stateAt(originX, originY, originZ))) {
+            found.add(origin);
+        }
+    }
+
+    /**
+     * Starts building a search from a position. The origin is always expanded, but only included
+     * in the results if it matches, so a search can start from a block that was just broken.
+     *
+     * @param level  the level to search
+     * @param origin the starting position
+     * @return a new builder
+     */
+    public static Builder builder(Level level, BlockPos origin) {
+        return new Builder(level, origin.asLong());
+    }
+
+    /**
+     * Continues the search for at most {@code nanoBudget} nanoseconds.
+     *
+     * @param nanoBudget the time budget for this slice
+     * @return {@code true} if the search has finished
+     */
+    public boolean run(long nanoBudget) {
+        // Chunks may have unloaded since the last slice
+        resetCache();
+        long deadline = System.nanoTime() + nanoBudget;
+        int steps = 0;
+        while (!isDone()) {
+            step();
+            if (++steps % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        return isDone();
+    }
+
+    /**
+     * Runs the search until it finishes.
+     *
+     * @return this search
+     */
+    public BlockFloodFill runToCompletion() {
+        resetCache();
+        while (!isDone()) {
+            step();
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the search has finished, either by exhausting the connected blocks or by reaching
+     * the block limit.
+     */
+    public boolean isDone() {
+        return frontier.isEmpty() || found.size() >= maxBlocks;
+    }
+
+    /**
+     * Gets the number of blocks found so far.
+     */
+    public int size() {
+        return found.size();
+    }
+
+    /**
+     * Gets the positions found so far, in breadth-first order, as {@linkplain BlockPos#asLong packed longs}.
+     *
+     * @return a new array of the found positions
+     */
+    public long[] toArray() {
+        return found.toLongArray();
+    }
+
+    /**
+     * Calls {@code consumer} with every position found so far, in breadth-first order.
+     */
+    public void forEach(LongConsumer consumer) {
+        for (int i = 0, size = found.size(); i < size; i++) {
+            consumer.accept(found.getLong(i));
+        }
+    }
+
+    private void step() {
+        // Queued positions have already been matched, apart from the origin
+        long position = frontier.dequeueLong();
+        int x = BlockPos.getX(position);
+        int y = BlockPos.getY(position);
+        int z = BlockPos.getZ(position);
+
+        for (int i = 0; i < offsets.length && found.size() < maxBlocks; i += 3) {
+            int nx = x + offsets[i];
+            int ny = y + offsets[i + 1];
+            int nz = z + offsets[i + 2];
+            if (Math.abs(nx - originX) > maxDistance || Math.abs(ny - originY) > maxDistance || Math.abs(nz - originZ) > maxDistance) {
+                continue;
+            }
+            long neighbor = BlockPos.asLong(nx, ny, nz);
+            if (!visited.add(neighbor)) {
+                continue;
+            }
+            if (filter.test(stateAt(nx, ny, nz))) {
+                found.add(neighbor);
+                frontier.enqueue(neighbor);
+            }
+        }
+    }
+
+    private void resetCache() {
+        cachedChunkKey = Long.MIN_VALUE;
+        cachedChunk = null;
+    }
+
+    private BlockState stateAt(int x, int y, int z) {
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        long chunkKey = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        if (chunkKey != cachedChunkKey) {
+            cachedChunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+            cachedChunkKey = chunkKey;
+        }
+        return cachedChunk == null ? AIR : cachedChunk.getBlockState(cursor.set(x, y, z));
+    }
+
+    /**
+     * Which neighbors count as connected.
+     */
+    public enum Adjacency {
+        /**
+         * The 6 blocks sharing a face.
+         */
+        FACES(1),
+        /**
+         * The 18 blocks sharing a face or an edge.
+         */
+        EDGES(2),
+        /**
+         * All 26 surrounding blocks.
+         */
+        ALL(3);
+
+        private final int[] offsets;
+
+        Adjacency(int maxNonZeroAxes) {
+            int[] result = new int[26 * 3];
+            int count = 0;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        int nonZero = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+                        if (nonZero == 0 || nonZero > maxNonZeroAxes) {
+                            continue;
+                        }
+                        result[count++] = dx;
+                        result[count++] = dy;
+                        result[count++] = dz;
+                    }
+                }
+            }
+            this.offsets = Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * Builder for {@link BlockFloodFill}.
+     */
+    public static final class Builder {
+        private final Level level;
+        private final long origin;
+        private Predicate<BlockState> filter = state -> !state.isAir();
+        private Adjacency adjacency = Adjacency.FACES;
+        private int maxBlocks = 256;
+        private int maxDistance = 32;
+
+        private Builder(Level level, long origin) {
+            this.level = level;
+            this.origin = origin;
+        }
+
+        /**
+         * Sets which block states are part of the search. Defaults to any non-air block.
+         */
+        public Builder matching(Predicate<BlockState> filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Sets which neighbors count as connected. Defaults to {@link Adjacency#FACES}.
+         */
+        public Builder adjacency(Adjacency adjacency) {
+            this.adjacency = adjacency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of blocks to find. Defaults to 256.
+         */
+        public Builder maxBlocks(int maxBlocks) {
+            if (maxBlocks <= 0) {
+                throw new IllegalArgumentException("maxBlocks must be positive");
+            }
+            this.maxBlocks = maxBlocks;
+            return this;
+        }
+
+        /**
+         * Sets how far from the origin, on any axis, the search may reach. Defaults to 32.
+         */
+        public Builder maxDistance(int maxDistance) {
+            if (maxDistance < 0) {
+                throw new IllegalArgumentException("maxDistance cannot be negative");
+            }
+            this.maxDistance = maxDistance;
+            return this;
+        }
+
+        public BlockFloodFill build() {
+            return new BlockFloodFill(this);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * A set of block positions with a simple shape, iterated without allocating a {@code BlockPos} per block.
+ * <p>
+ * Volume shapes are visited chunk by chunk and, within a chunk, section by section, in the same
+ * {@code y, z, x} order the level stores blocks in, so consecutive positions hit the same chunk and section.
+ * Sections the shape does not reach are skipped without testing their blocks. Lines are visited from start
+ * to end instead.
+ *
+ * <pre>
+ * BlockShape.sphere(center, 8).forEach(pos -> {
+ *     if (level.getBlockState(pos).is(Blocks.FIRE)) {
+ *         level.removeBlock(pos, false);
+ *     }
+ * });
+ * </pre>
+ * <p>
+ * The position given to {@link #forEach(Consumer)} is a single mutable instance that changes after each call;
+ * call {@link BlockPos#immutable()} to keep it.
+ */
+public abstract class BlockShape {
+    final int minX;
+    final int minY;
+    final int minZ;
+    final int maxX;
+    final int maxY;
+    final int maxZ;
+
+    private BlockShape(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Gets the blocks whose distance from {@code center} is at most {@code radius}.
+     */
+    public static BlockShape sphere(BlockPos center, int radius) {
+        return new Shell(center, radius, -1);
+    }
+
+    /**
+     * Gets the blocks whose distance from {@code center} is at most {@code radius} but more than
+     * {@code radius - thickness}.
+     */
+    public static BlockShape shell(BlockPos center, int radius, int thickness) {
+        if (thickness <= 0) {
+            throw new IllegalArgumentException("thickness must be positive");
+        }
+        return new Shell(center, radius, radius - thickness);
+    }
+
+    /**
+     * Gets the blocks in a vertical cylinder: at most {@code radius} from {@code center} horizontally and at
+     * most {@code halfHeight} above or below it.
+     */
+    public static BlockShape cylinder(BlockPos center, int radius, int halfHeight) {
+        return new Cylinder(center, radius, halfHeight);
+    }
+
+    /**
+     * Gets the blocks at most {@code radius} from {@code center} on every axis.
+     */
+    public static BlockShape cube(BlockPos center, int radius) {
+        checkRadius(radius);
+        int x = WorldCompat.blockX(center), y = WorldCompat.blockY(center), z = WorldCompat.blockZ(center);
+        return new Box(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+    }
+
+    /**
+     * Gets the blocks between two corners, inclusive.
+     */
+    public static BlockShape box(BlockPos from, BlockPos to) {
+        return new Box(
+                Math.min(WorldCompat.blockX(from), WorldCompat.blockX(to)),
+                Math.min(WorldCompat.blockY(from), WorldCompat.blockY(to)),
+                Math.min(WorldCompat.blockZ(from), WorldCompat.blockZ(to)),
+                Math.max(WorldCompat.blockX(from), WorldCompat.blockX(to)),
+                Math.max(WorldCompat.blockY(from), WorldCompat.blockY(to)),
+                Math.max(WorldCompat.blockZ(from), WorldCompat.blockZ(to))
+        );
+    }
+
+    /**
+     * Gets the blocks on a line between two positions, inclusive, with each block sharing a face, an edge or
+     * a corner with the one before it.
+     */
+    public static BlockShape line(BlockPos from, BlockPos to) {
+        return new Line(from, to);
+    }
+
+    /**
+     * Checks whether a position is part of the shape.
+     */
+    public abstract boolean contains(int x, int y, int z);
+
+    public boolean contains(BlockPos position) {
+        return contains(WorldCompat.blockX(position), WorldCompat.blockY(position), WorldCompat.blockZ(position));
+    }
+
+    /**
+     * Calls {@code action} with every position in the shape, reusing one mutable position.
+     */
+    public void forEach(Consumer<? super BlockPos.MutableBlockPos> action) {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        visit((x, y, z) -> action.accept(cursor.set(x, y, z)));
+    }
+
+    /**
+     * Calls {@code action} with the {@linkplain BlockPos#asLong packed position} of every position in the shape.
+     */
+    public void forEachPacked(LongConsumer action) {
+        visit((x, y, z) -> action.accept(BlockPos.asLong(x, y, z)));
+    }
+
+    /**
+     * Counts the positions in the shape.
+     */
+    public int count() {
+        int[] count = new int[1];
+        visit((x, y, z) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Finds the positions in the shape whose block in {@code snapshot} matches {@code filter}, checking
+     * sections in parallel. Since snapshots are immutable, this is safe off the level's thread, but
+     * {@code filter} must be safe to call from several threads at once. Positions outside the snapshot
+     * read as air.
+     *
+     * @param snapshot the blocks to check
+     * @param filter   the states to find
+     * @return the matching {@linkplain BlockPos#asLong packed positions}, in the shape's iteration order
+     */
+    public long[] findMatching(RegionSnapshot snapshot, Predicate<BlockState> filter) {
+        IntArrayList sections = new IntArrayList();
+        forEachSection((sectionX, sectionY, sectionZ) -> {
+            sections.add(sectionX);
+            sections.add(sectionY);
+            sections.add(sectionZ);
+        });
+
+        LongArrayList[] found = IntStream.range(0, sections.size() / 3).parallel().mapToObj(i -> {
+            LongArrayList matches = new LongArrayList();
+            visitSection(sections.getInt(i * 3), sections.getInt(i * 3 + 1), sections.getInt(i * 3 + 2), (x, y, z) -> {
+                if (filter.test(snapshot.getBlockState(x, y, z))) {
+                    matches.add(BlockPos.asLong(x, y, z));
+                }
+            });
+            return matches;
+        }).toArray(LongArrayList[]::new);
+
+        LongArrayList result = new LongArrayList();
+        for (LongArrayList matches : found) {
+            result.addAll(matches);
+        }
+        return result.toLongArray();
+    }
+
+    /**
+     * Checks whether the shape might include blocks in the section spanning the given bounds.
+     */
+    boolean mayIntersect(int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+        return true;
+    }
+
+    void visit(Visitor visitor) {
+        forEachSection((sectionX, sectionY, sectionZ) -> visitSection(sectionX, sectionY, sectionZ, visitor));
+    }
+
+    private void forEachSection(Visitor visitor) {
+        for (int sectionX = minX >> 4; sectionX <= maxX >> 4; sectionX++) {
+            for (int sectionZ = minZ >> 4; sectionZ <= maxZ >> 4; sectionZ++) {
+                for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                    int baseX = sectionX << 4, baseY = sectionY << 4, baseZ = sectionZ << 4;
+                    if (mayIntersect(Math.max(minX, baseX), Math.max(minY, baseY), Math.max(minZ, baseZ),
+                            Math.min(maxX, baseX + 15), Math.min(maxY, baseY + 15), Math.min(maxZ, baseZ + 15))) {
+                        visitor.visit(sectionX, sectionY, sectionZ);
+                    }
+                }
+            }
+        }
+    }
+
+    void visitSection(int sectionX, int sectionY, int sectionZ, Visitor visitor) {
+        int fromX = Math.max(minX, sectionX << 4), toX = Math.min(maxX, (sectionX << 4) + 15);
+        int fromY = Math.max(minY, sectionY << 4), toY = Math.min(maxY, (sectionY << 4) + 15);
+        int fromZ = Math.max(minZ, sectionZ << 4), toZ = Math.min(maxZ, (sectionZ << 4) + 15);
+        for (int y = fromY; y <= toY; y++) {
+            for (int z = fromZ; z <= toZ; z++) {
+                for (int x = fromX; x <= toX; x++) {
+                    if (contains(x, y, z)) {
+                        visitor.visit(x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkRadius(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius cannot be negative");
+        }
+    }
+
+    /**
+     * Receives block or section coordinates.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void visit(int x, int y, int z);
+    }
+
+    private static final class Box extends BlockShape {
+        private Box(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            super(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        @Override
+        void visitSection(int sectionX, int sectionY, int sectionZ, Visitor visitor) {
+            int fromX = Math.max(minX, sectionX << 4), toX = Math.min(maxX, (sectionX << 4) + 15);
+            int fromY = Math.max(minY, sectionY << 4), toY = Math.min(maxY, (sectionY << 4) + 15);
+            int fromZ = Math.max(minZ, sectionZ << 4), toZ = Math.min(maxZ, (sectionZ << 4) + 15);
+            for (int y = fromY; y <= toY; y++) {
+                for (int z = fromZ; z <= toZ; z++) {
+                    for (int x = fromX; x <= toX; x++) {
+                        visitor.visit(x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A sphere, or a hollow one when {@code innerRadius} is not negative.
+     */
+    private static final class Shell extends BlockShape {
+        private final int centerX;
+        private final int centerY;
+        private final int centerZ;
+        private final long radiusSqr;
+        private final long innerRadiusSqr;
+
+        private Shell(BlockPos center, int radius, int innerRadius) {
+            super(WorldCompat.blockX(center) - radius, WorldCompat.blockY(center) - radius, WorldCompat.blockZ(center) - radius,
+                    WorldCompat.blockX(center) + radius, WorldCompat.blockY(center) + radius, WorldCompat.blockZ(center) + radius);
+            checkRadius(radius);
+            this.centerX = WorldCompat.blockX(center);
+            this.centerY = WorldCompat.blockY(center);
+            this.centerZ = WorldCompat.blockZ(center);
+            this.radiusSqr = (long) radius * radius;
+            this.innerRadiusSqr = innerRadius < 0 ? -1 : (long) innerRadius * innerRadius;
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            long distanceSqr = distanceSqr(x - centerX, y - centerY, z - centerZ);
+            return distanceSqr <= radiusSqr && distanceSqr > innerRadiusSqr;
+        }
+
+        @Override
+        boolean mayIntersect(int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+            long nearest = distanceSqr(nearest(centerX, fromX, toX), nearest(centerY, fromY, toY), nearest(centerZ, fromZ, toZ));
+            long farthest = distanceSqr(farthest(centerX, fromX, toX), farthest(centerY, fromY, toY), farthest(centerZ, fromZ, toZ));
+            return nearest <= radiusSqr && farthest > innerRadiusSqr;
+        }
+    }
+
+    private static final class Cylinder extends BlockShape {
+        private final int centerX;
+        private final int centerZ;
+        private final long radiusSqr;
+
+        private Cylinder(BlockPos center, int radius, int halfHeight) {
+            super(WorldCompat.blockX(center) - radius, WorldCompat.blockY(center) - halfHeight, WorldCompat.blockZ(center) - radius,
+                    WorldCompat.blockX(center) + radius, WorldCompat.blockY(center) + halfHeight, WorldCompat.blockZ(center) + radius);
+            checkRadius(radius);
+            if (halfHeight < 0) {
+                throw new IllegalArgumentException("halfHeight cannot be negative");
+            }
+            this.centerX = WorldCompat.blockX(center);
+            this.centerZ = WorldCompat.blockZ(center);
+            this.radiusSqr = (long) radius * radius;
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            return y >= minY && y <= maxY && distanceSqr(x - centerX, 0, z - centerZ) <= radiusSqr;
+        }
+
+        @Override
+        boolean mayIntersect(int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+            return distanceSqr(nearest(centerX, fromX, toX), 0, nearest(centerZ, fromZ, toZ)) <= radiusSqr;
+        }
+    }
+
+    /**
+     * A 3D Bresenham line, stepping one block along its longest axis at a time.
+     */
+    private static final class Line extends BlockShape {
+        private final int fromX;
+        private final int fromY;
+        private final int fromZ;
+        private final int toX;
+        private final int toY;
+        private final int toZ;
+
+        private Line(BlockPos from, BlockPos to) {
+            super(Math.min(WorldCompat.blockX(from), WorldCompat.blockX(to)),
+                    Math.min(WorldCompat.blockY(from), WorldCompat.blockY(to)),
+                    Math.min(WorldCompat.blockZ(from), WorldCompat.blockZ(to)),
+                    Math.max(WorldCompat.blockX(from), WorldCompat.blockX(to)),
+                    Math.max(WorldCompat.blockY(from), WorldCompat.blockY(to)),
+                    Math.max(WorldCompat.blockZ(from), WorldCompat.blockZ(to)));
+            this.fromX = WorldCompat.blockX(from);
+            this.fromY = WorldCompat.blockY(from);
+            this.fromZ = WorldCompat.blockZ(from);
+            this.toX = WorldCompat.blockX(to);
+            this.toY = WorldCompat.blockY(to);
+            this.toZ = WorldCompat.blockZ(to);
+        }
+
+        @Override
+        public boolean contains(int x, int y, int z) {
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                return false;
+            }
+            boolean[] found = new boolean[1];
+            visit((px, py, pz) -> found[0] |= px == x && py == y && pz == z);
+            return found[0];
+        }
+
+        @Override
+        void visit(Visitor visitor) {
+            int dx = Math.abs(toX - fromX), dy = Math.abs(toY - fromY), dz = Math.abs(toZ - fromZ);
+            int stepX = Integer.signum(toX - fromX), stepY = Integer.signum(toY - fromY), stepZ = Integer.signum(toZ - fromZ);
+            int steps = Math.max(dx, Math.max(dy, dz));
+            int x = fromX, y = fromY, z = fromZ;
+            int errorX = steps / 2, errorY = steps / 2, errorZ = steps / 2;
+            visitor.visit(x, y, z);
+            for (int i = 0; i < steps; i++) {
+                errorX -= dx;
+                errorY -= dy;
+                errorZ -= dz;
+                if (errorX < 0) {
+                    x += stepX;
+                    errorX += steps;
+                }
+                if (errorY < 0) {
+                    y += stepY;
+                    errorY += steps;
+                }
+                if (errorZ < 0) {
+                    z += stepZ;
+                    errorZ += steps;
+                }
+                visitor.visit(x, y, z);
+            }
+        }
+
+        @Override
+        public long[] findMatching(RegionSnapshot snapshot, Predicate<BlockState> filter) {
+            // Too short to be worth splitting up
+            LongArrayList matches = new LongArrayList();
+            visit((x, y, z) -> {
+                if (filter.test(snapshot.getBlockState(x, y, z))) {
+                    matches.add(BlockPos.asLong(x, y, z));
+                }
+            });
+            return matches.toLongArray();
+        }
+    }
+
+    private static long distanceSqr(long dx, long dy, long dz) {
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static int nearest(int center, int from, int to) {
+        return Math.max(from, Math.min(center, to)) - center;
+    }
+
+    private static int farthest(int center, int from, int to) {
+        return Math.max(Math.abs(from - center), Math.abs(to - center));
+    }
+}
@@ -0,0 +1,350 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.api.event.v1.events.common.EntityEvent;
+import com.iamkaf.amber.api.event.v1.events.common.ServerTickEvents;
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2LongMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+//? if <1.17
+/*import net.minecraft.world.entity.EntityType;*/
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * An opt-in, shared spatial hash of the entities in each server level.
+ * <p>
+ * Entities are bucketed by position into {@value #CELL_SIZE} block cells keyed by packed longs.
+ * Once enabled, the radius, shape and nearest entity queries in
+ * {@link com.iamkaf.amber.api.functions.v1.WorldFunctions} use the hash instead of walking the
+ * level's entity sections, so one structure serves every mod's scans.
+ * <p>
+ * Entities are added as soon as they spawn, and each remembers the cell it was filed under. At the end
+ * of each server tick the tracked entities are checked: an entity is moved only when its cell changed, and
+ * dropped once it has been removed, changed dimension or unloaded with its chunk. Entities that enter a
+ * level without a spawn event, such as those loaded with chunks on Fabric, are picked up by a sweep once a
+ * second.
+ * <p>
+ * Cell membership can lag behind by one tick of movement, so queries also search the cells within
+ * {@value #MAX_TICK_MOVEMENT} blocks of the searched box and test entities' current positions. Entities that
+ * moved further than that within the current tick, such as by teleporting, are found from the next tick on.
+ * <p>
+ * The hash is only maintained and queried on the server thread.
+ */
+public final class EntitySpatialHash {
+    /**
+     * The edge length of a cell, in blocks.
+     */
+    public static final int CELL_SIZE = 8;
+    /**
+     * How far an entity may move in one tick and still be found by queries before the hash catches up.
+     */
+    public static final int MAX_TICK_MOVEMENT = CELL_SIZE;
+    private static final int CELL_SHIFT = 3;
+    private static final int DISCOVERY_INTERVAL = 20;
+
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static final Map<Level, LevelIndex> LEVELS = new IdentityHashMap<>();
+    private static volatile boolean enabled = false;
+
+    private EntitySpatialHash() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Enables the spatial hash. Safe to call multiple times, for example from each mod that wants it.
+     */
+    public static void enable() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            EntityEvent.ENTITY_SPAWN.register((entity, level) -> {
+                if (enabled && level instanceof ServerLevel) {
+                    index(level).insert(entity);
+                }
+            });
+            ServerTickEvents.END_SERVER_TICK.register(() -> {
+                if (enabled) {
+                    for (LevelIndex index : LEVELS.values()) {
+                        index.update();
+                    }
+                }
+            });
+            WorldEvents.WORLD_UNLOAD.register((server, level) -> LEVELS.remove(level));
+        }
+        enabled = true;
+    }
+
+    /**
+     * Disables the spatial hash and frees its memory. Queries fall back to the level's own lookups.
+     */
+    public static void disable() {
+        enabled = false;
+        LEVELS.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checks whether queries against a level can be answered by the spatial hash.
+     *
+     * @param level the level
+     * @return {@code true} if the hash is enabled and the level is a server level
+     */
+    public static boolean isIndexed(Level level) {
+        return enabled && level instanceof ServerLevel;
+    }
+
+    /**
+     * Visits every entity of a class whose position lies inside a box.
+     *
+     * @param level   the level to search, which must be {@linkplain #isIndexed indexed}
+     * @param bounds  the box to search
+     * @param type    the entity class to search for; other classes are skipped without further checks
+     * @param visitor called for each matching entity; return {@code false} to stop the search
+     * @param <T>     the entity type
+     * @return {@code true} if the search completed, {@code false} if the visitor stopped it early
+     */
+    public static <T extends Entity> boolean forEachEntity(Level level, AABB bounds, Class<T> type, Predicate<? super T> visitor) {
+        if (!isIndexed(level)) {
+            throw new IllegalStateException("Level is not indexed by the entity spatial hash");
+        }
+        return index(level).forEach(bounds, type, visitor);
+    }
+
+    /**
+     * Gets the number of entities indexed in a level.
+     *
+     * @param level the level
+     * @return the number of indexed entities, or 0 if the level is not indexed
+     */
+    public static int size(Level level) {
+        LevelIndex index = isIndexed(level) ? LEVELS.get(level) : null;
+        return index == null ? 0 : index.tracked.size();
+    }
+
+    /**
+     * Packs cell coordinates into a key: 26 bits of X, 26 bits of Z and 12 bits of Y.
+     */
+    private static long cellKey(int cellX, int cellY, int cellZ) {
+        return ((long) (cellX & 0x3FFFFFF) << 38) | ((long) (cellZ & 0x3FFFFFF) << 12) | (cellY & 0xFFF);
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate) >> CELL_SHIFT;
+    }
+
+    private static LevelIndex index(Level level) {
+        LevelIndex index = LEVELS.get(level);
+        if (index == null) {
+            index = new LevelIndex((ServerLevel) level);
+            LEVELS.put(level, index);
+            index.discover();
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether an entity has left its level, by being removed, changing dimension or unloading.
+     */
+    private static boolean isGone(Entity entity) {
+        //? if >=1.17
+        return entity.isRemoved();
+        //? if <1.17
+        /*return entity.removed;*/
+    }
+
+    private static long cellKey(Entity entity) {
+        Vec3 position = WorldCompat.entityPosition(entity);
+        return cellKey(cell(WorldCompat.vecX(position)), cell(WorldCompat.vecY(position)), cell(WorldCompat.vecZ(position)));
+    }
+
+    /**
+     * The cells of one level.
+     */
+    private static final class LevelIndex {
+        private final ServerLevel level;
+        private final Long2ObjectOpenHashMap<ArrayList<Entity>> cells = new Long2ObjectOpenHashMap<>();
+        // The cell each tracked entity is filed under
+        private final Reference2LongOpenHashMap<Entity> tracked = new Reference2LongOpenHashMap<>();
+        private int ticks;
+
+        private LevelIndex(ServerLevel level) {
+            this.level = level;
+        }
+
+        private void insert(Entity entity) {
+            if (tracked.containsKey(entity) || isGone(entity)) {
+                return;
+            }
+            long key = cellKey(entity);
+            tracked.put(entity, key);
+            add(entity, key);
+        }
+
+        private void add(Entity entity, long key) {
+            ArrayList<Entity> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.put(key, cell);
+            }
+            cell.add(entity);
+        }
+
+        private void remove(Entity entity, long key) {
+            ArrayList<Entity> cell = cells.get(key);
+            if (cell == null) {
+                return;
+            }
+            for (int i = 0, size = cell.size(); i < size; i++) {
+                if (cell.get(i) == entity) {
+                    // Order within a cell does not matter, so fill the gap with the last entity
+                    cell.set(i, cell.get(size - 1));
+                    cell.remove(size - 1);
+                    break;
+                }
+            }
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+
+        /**
+         * Moves tracked entities whose cell changed and drops those that left the level. Every
+         * {@value #DISCOVERY_INTERVAL} ticks, also picks up entities that entered the level without a spawn
+         * event.
+         */
+        private void update() {
+            ObjectIterator<Reference2LongMap.Entry<Entity>> iterator = tracked.reference2LongEntrySet().fastIterator();
+            while (iterator.hasNext()) {
+                Reference2LongMap.Entry<Entity> entry = iterator.next();
+                Entity entity = entry.getKey();
+                long previous = entry.getLongValue();
+                if (hasLeft(entity)) {
+                    remove(entity, previous);
+                    iterator.remove();
+                    continue;
+                }
+                long key = cellKey(entity);
+                if (key != previous) {
+                    remove(entity, previous);
+                    add(entity, key);
+                    entry.setValue(key);
+                }
+            }
+            if (++ticks % DISCOVERY_INTERVAL == 0) {
+                discover();
+            }
+        }
+
+        private boolean hasLeft(Entity entity) {
+            //? if >=1.17
+            return isGone(entity) || !isIn(entity);
+            //? if <1.17
+            /*return isGone(entity) || !isIn(entity) || level.getEntity(entity.getUUID()) != entity;*/
+        }
+
+        /**
+         * Checks whether an entity is still in this level. Players changing dimension are removed and then
+         * restored, so they are not gone but belong to another level.
+         */
+        private boolean isIn(Entity entity) {
+            //? if >=1.20
+            return entity.level() == level;
+            //? if <1.20
+            /*return entity.level == level;*/
+        }
+
+        /**
+         * Tracks every entity in the level that is not tracked yet, such as those loaded with chunks.
+         */
+        private void discover() {
+            //? if >=1.17 {
+            for (Entity entity : level.getAllEntities()) {
+                insert(entity);
+            }
+            //?} else {
+            /*level.getEntities((EntityType<?>) null, entity -> {
+                insert(entity);
+                return false;
+            });*/
+            //?}
+        }
+
+        private <T extends Entity> boolean forEach(AABB bounds, Class<T> type, Predicate<? super T> visitor) {
+            double minX = bounds.minX;
+            double minY = bounds.minY;
+            double minZ = bounds.minZ;
+            double maxX = bounds.maxX;
+            double maxY = bounds.maxY;
+            double maxZ = bounds.maxZ;
+            // Entities are filed by where they were at the end of the last tick, so widen the search
+            int minCellX = cell(minX - MAX_TICK_MOVEMENT);
+            int minCellY = cell(minY - MAX_TICK_MOVEMENT);
+            int minCellZ = cell(minZ - MAX_TICK_MOVEMENT);
+            int maxCellX = cell(maxX + MAX_TICK_MOVEMENT);
+            int maxCellY = cell(maxY + MAX_TICK_MOVEMENT);
+            int maxCellZ = cell(maxZ + MAX_TICK_MOVEMENT);
+
+            long cellCount = (long) (maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) * (maxCellZ - minCellZ + 1);
+            if (cellCount > cells.size()) {
+                // Fewer occupied cells than cells in range, so walk the occupied ones instead
+                for (ArrayList<Entity> cell : cells.values()) {
+                    if (!visit(cell, type, visitor, minX, minY, minZ, maxX, maxY, maxZ)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                        ArrayList<Entity> cell = cells.get(cellKey(cellX, cellY, cellZ));
+                        if (cell != null && !visit(cell, type, visitor, minX, minY, minZ, maxX, maxY, maxZ)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private <T extends Entity> boolean visit(
+                ArrayList<Entity> cell,
+                Class<T> type,
+                Predicate<? super T> visitor,
+                double minX, double minY, double minZ,
+                double maxX, double maxY, double maxZ
+        ) {
+            for (int i = 0, size = cell.size(); i < size; i++) {
+                Entity entity = cell.get(i);
+                if (!type.isInstance(entity) || isGone(entity) || !isIn(entity)) {
+                    continue;
+                }
+                Vec3 position = WorldCompat.entityPosition(entity);
+                double x = WorldCompat.vecX(position);
+                double y = WorldCompat.vecY(position);
+                double z = WorldCompat.vecZ(position);
+                if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                    continue;
+                }
+                if (!visitor.test(type.cast(entity))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
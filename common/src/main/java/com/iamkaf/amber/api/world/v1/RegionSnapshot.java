@@ -0,0 +1,282 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.compat.WorldCompat;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+//? if >=1.18
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * An immutable copy of the block states in a region, safe to query from any thread.
+ * <p>
+ * Capture a snapshot on the level's thread with {@link #capture(Level, BlockPos, BlockPos)}, then hand it
+ * to worker threads for ore finding, claim analysis, structure detection and similar scans. Each chunk
+ * section is copied in its palette-compressed form, so memory use stays close to the level's own storage.
+ * Sections that only contain air, lie outside the world or belong to chunks that are not loaded are
+ * not stored at all and read as air.
+ */
+public final class RegionSnapshot {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int minSectionX;
+    private final int minSectionY;
+    private final int minSectionZ;
+    private final int sectionsX;
+    private final int sectionsZ;
+    private final Section[] sections;
+    private final boolean[] loadedChunks;
+
+    private RegionSnapshot(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.minSectionX = minX >> 4;
+        this.minSectionY = minY >> 4;
+        this.minSectionZ = minZ >> 4;
+        this.sectionsX = (maxX >> 4) - minSectionX + 1;
+        this.sectionsZ = (maxZ >> 4) - minSectionZ + 1;
+        int sectionsY = (maxY >> 4) - minSectionY + 1;
+        this.sections = new Section[sectionsX * sectionsY * sectionsZ];
+        this.loadedChunks = new boolean[sectionsX * sectionsZ];
+    }
+
+    /**
+     * Captures the block states between two corners, inclusive. Must be called on the level's thread.
+     * Chunks that are not loaded are skipped rather than loaded.
+     *
+     * @param level the level to copy from
+     * @param from  one corner of the region
+     * @param to    the opposite corner of the region
+     * @return the snapshot
+     */
+    public static RegionSnapshot capture(Level level, BlockPos from, BlockPos to) {
+        RegionSnapshot snapshot = new RegionSnapshot(
+                Math.min(WorldCompat.blockX(from), WorldCompat.blockX(to)),
+                Math.min(WorldCompat.blockY(from), WorldCompat.blockY(to)),
+                Math.min(WorldCompat.blockZ(from), WorldCompat.blockZ(to)),
+                Math.max(WorldCompat.blockX(from), WorldCompat.blockX(to)),
+                Math.max(WorldCompat.blockY(from), WorldCompat.blockY(to)),
+                Math.max(WorldCompat.blockZ(from), WorldCompat.blockZ(to))
+        );
+        int sectionsY = snapshot.sections.length / (snapshot.sectionsX * snapshot.sectionsZ);
+
+        for (int dx = 0; dx < snapshot.sectionsX; dx++) {
+            for (int dz = 0; dz < snapshot.sectionsZ; dz++) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(snapshot.minSectionX + dx, snapshot.minSectionZ + dz);
+                if (chunk == null) {
+                    continue;
+                }
+                snapshot.loadedChunks[dx + dz * snapshot.sectionsX] = true;
+
+                LevelChunkSection[] chunkSections = chunk.getSections();
+                for (int dy = 0; dy < sectionsY; dy++) {
+                    //? if >=1.17
+                    int index = chunk.getSectionIndexFromSectionY(snapshot.minSectionY + dy);
+                    //? if <1.17
+                    /*int index = snapshot.minSectionY + dy;*/
+                    if (index < 0 || index >= chunkSections.length) {
+                        continue;
+                    }
+                    snapshot.sections[snapshot.sectionIndex(dx, dy, dz)] = copy(chunkSections[index]);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static Section copy(LevelChunkSection section) {
+        //? if >=1.18 {
+        if (section.hasOnlyAir()) {
+            return null;
+        }
+        return new PalettedSection(section.getStates().copy());
+        //?} else {
+        /*if (section == null || LevelChunkSection.isEmpty(section)) {
+            return null;
+        }
+        return ArraySection.copy(section);*/
+        //?}
+    }
+
+    /**
+     * Gets the block state at a position. Positions outside the captured region read as air.
+     *
+     * @return the block state
+     */
+    public BlockState getBlockState(int x, int y, int z) {
+        if (!contains(x, y, z)) {
+            return AIR;
+        }
+        Section section = sections[sectionIndex((x >> 4) - minSectionX, (y >> 4) - minSectionY, (z >> 4) - minSectionZ)];
+        return section == null ? AIR : section.get(x & 15, y & 15, z & 15);
+    }
+
+    public BlockState getBlockState(BlockPos position) {
+        return getBlockState(WorldCompat.blockX(position), WorldCompat.blockY(position), WorldCompat.blockZ(position));
+    }
+
+    /**
+     * Checks whether a position lies inside the captured region.
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * Checks whether the chunk holding a position was loaded when the snapshot was captured.
+     */
+    public boolean isLoaded(int x, int z) {
+        if (x < minX || x > maxX || z < minZ || z > maxZ) {
+            return false;
+        }
+        return loadedChunks[((x >> 4) - minSectionX) + ((z >> 4) - minSectionZ) * sectionsX];
+    }
+
+    /**
+     * Calls {@code consumer} with the {@linkplain BlockPos#asLong packed position} of every block in the
+     * region matching {@code filter}. Sections stored as air are skipped when air does not match.
+     *
+     * @param filter   the states to find
+     * @param consumer receives packed positions, in section order
+     * @return the number of matching blocks
+     */
+    public int forEachMatching(Predicate<BlockState> filter, LongConsumer consumer) {
+        boolean airMatches = filter.test(AIR);
+        int sectionsY = sections.length / (sectionsX * sectionsZ);
+        int found = 0;
+        for (int dy = 0; dy < sectionsY; dy++) {
+            for (int dz = 0; dz < sectionsZ; dz++) {
+                for (int dx = 0; dx < sectionsX; dx++) {
+                    Section section = sections[sectionIndex(dx, dy, dz)];
+                    if (section == null && !airMatches) {
+                        continue;
+                    }
+                    int baseX = (minSectionX + dx) << 4;
+                    int baseY = (minSectionY + dy) << 4;
+                    int baseZ = (minSectionZ + dz) << 4;
+                    int fromX = Math.max(minX, baseX), toX = Math.min(maxX, baseX + 15);
+                    int fromY = Math.max(minY, baseY), toY = Math.min(maxY, baseY + 15);
+                    int fromZ = Math.max(minZ, baseZ), toZ = Math.min(maxZ, baseZ + 15);
+                    for (int y = fromY; y <= toY; y++) {
+                        for (int z = fromZ; z <= toZ; z++) {
+                            for (int x = fromX; x <= toX; x++) {
+                                BlockState state = section == null ? AIR : section.get(x & 15, y & 15, z & 15);
+                                if (filter.test(state)) {
+                                    consumer.accept(BlockPos.asLong(x, y, z));
+                                    found++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    private int sectionIndex(int dx, int dy, int dz) {
+        return dx + sectionsX * (dz + sectionsZ * dy);
+    }
+
+    /**
+     * A copied chunk section, indexed by local coordinates.
+     */
+    private interface Section {
+        BlockState get(int x, int y, int z);
+    }
+
+    //? if >=1.18 {
+    /**
+     * A section backed by a copy of the level's own palette and packed storage.
+     */
+    private record PalettedSection(PalettedContainer<BlockState> states) implements Section {
+        @Override
+        public BlockState get(int x, int y, int z) {
+            return states.get(x, y, z);
+        }
+    }
+    //?}
+
+    /**
+     * A section copied into a palette and index array, for versions whose containers cannot be copied.
+     */
+    private static final class ArraySection implements Section {
+        private final BlockState[] palette;
+        private final short[] indices;
+
+        private ArraySection(BlockState[] palette, short[] indices) {
+            this.palette = palette;
+            this.indices = indices;
+        }
+
+        private static ArraySection copy(LevelChunkSection section) {
+            Map<BlockState, Integer> ids = new IdentityHashMap<>();
+            List<BlockState> palette = new ArrayList<>();
+            short[] indices = new short[4096];
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        BlockState state = section.getBlockState(x, y, z);
+                        Integer id = ids.get(state);
+                        if (id == null) {
+                            id = palette.size();
+                            ids.put(state, id);
+                            palette.add(state);
+                        }
+                        indices[(y << 8) | (z << 4) | x] = (short) (int) id;
+                    }
+                }
+            }
+            return new ArraySection(palette.toArray(new BlockState[0]), indices);
+        }
+
+        @Override
+        public BlockState get(int x, int y, int z) {
+            return palette[indices[(y << 8) | (z << 4) | x]];
+        }
+    }
+}
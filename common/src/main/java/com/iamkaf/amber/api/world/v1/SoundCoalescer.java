@@ -0,0 +1,243 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.api.event.v1.events.common.ServerTickEvents;
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.compat.PlayerCompat;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+//? if >=1.18.2
+import net.minecraft.core.Holder;
+import net.minecraft.network.protocol.game.ClientboundSoundPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.sounds.SoundEvent;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An opt-in layer that merges duplicate sounds played on the server within one tick.
+ * <p>
+ * Breaking hundreds of blocks in a tick plays hundreds of identical sounds, each sent as its own packet to
+ * every nearby player. Once enabled, {@link com.iamkaf.amber.api.functions.v1.WorldFunctions#playSoundAt}
+ * and {@link com.iamkaf.amber.api.functions.v1.PlayerFunctions#playSound} queue their sounds instead. Requests
+ * for the same sound and source whose positions fall in the same {@link #setBucketSize(int) bucket} are merged
+ * into one, keeping the first position and pitch and the loudest volume. At the end of the server tick the
+ * merged sounds are sent, at most {@link #setMaxSoundsPerPlayer(int)} per player, in the order they were
+ * first requested.
+ * <p>
+ * Sounds played on client levels are never queued. Queued sounds must be requested on the server thread.
+ * <p>
+ * Queued sounds are sent as packets directly rather than through {@link Level#playSound}, so the per-player
+ * cap can be applied. They therefore bypass Forge's and NeoForge's {@code PlayLevelSoundEvent}: listeners of
+ * that event cannot change or cancel sounds played through Amber while coalescing is enabled.
+ */
+public final class SoundCoalescer {
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static final Map<Key, Pending> PENDING = new LinkedHashMap<>();
+    private static final Object2IntOpenHashMap<ServerPlayer> SENT = new Object2IntOpenHashMap<>();
+    private static volatile boolean enabled = false;
+    private static volatile int bucketSize = 2;
+    private static volatile int maxSoundsPerPlayer = 16;
+
+    private SoundCoalescer() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Enables sound coalescing. Safe to call multiple times.
+     */
+    public static void enable() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            ServerTickEvents.END_SERVER_TICK.register(SoundCoalescer::flush);
+            WorldEvents.WORLD_UNLOAD.register((server, level) -> PENDING.values().removeIf(pending -> pending.level == level));
+        }
+        enabled = true;
+    }
+
+    /**
+     * Disables sound coalescing. Sounds already queued are still sent at the end of the tick.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the edge length, in blocks, of the cubes within which identical sounds are merged. Defaults to 2.
+     */
+    public static void setBucketSize(int bucketSize) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("bucketSize must be positive");
+        }
+        SoundCoalescer.bucketSize = bucketSize;
+    }
+
+    /**
+     * Sets how many sounds each player receives per tick at most. Defaults to 16.
+     */
+    public static void setMaxSoundsPerPlayer(int maxSoundsPerPlayer) {
+        if (maxSoundsPerPlayer <= 0) {
+            throw new IllegalArgumentException("maxSoundsPerPlayer must be positive");
+        }
+        SoundCoalescer.maxSoundsPerPlayer = maxSoundsPerPlayer;
+    }
+
+    /**
+     * Queues a sound for everyone in range of a position, if coalescing is enabled and the level is a
+     * server level.
+     *
+     * @return {@code true} if the sound was queued, {@code false} if the caller should play it itself
+     */
+    public static boolean queue(Level level, double x, double y, double z,
+            //? if >=1.18.2
+            Holder<SoundEvent> sound,
+            //? if <1.18.2
+            /*SoundEvent sound,*/
+            SoundSource source, float volume, float pitch) {
+        if (!enabled || !(level instanceof ServerLevel serverLevel)) {
+            return false;
+        }
+        queue(serverLevel, null, x, y, z, sound, source, volume, pitch);
+        return true;
+    }
+
+    /**
+     * Queues a sound for a single player, if coalescing is enabled.
+     *
+     * @return {@code true} if the sound was queued, {@code false} if the caller should play it itself
+     */
+    public static boolean queue(ServerPlayer player, double x, double y, double z,
+            //? if >=1.18.2
+            Holder<SoundEvent> sound,
+            //? if <1.18.2
+            /*SoundEvent sound,*/
+            SoundSource source, float volume, float pitch) {
+        if (!enabled) {
+            return false;
+        }
+        //? if >=1.20
+        ServerLevel level = (ServerLevel) player.level();
+        //? if <1.20
+        /*ServerLevel level = (ServerLevel) player.level;*/
+        queue(level, player, x, y, z, sound, source, volume, pitch);
+        return true;
+    }
+
+    private static void queue(ServerLevel level, @Nullable ServerPlayer target, double x, double y, double z,
+            //? if >=1.18.2
+            Holder<SoundEvent> sound,
+            //? if <1.18.2
+            /*SoundEvent sound,*/
+            SoundSource source, float volume, float pitch) {
+        int size = bucketSize;
+        long bucket = ((long) (Math.floorDiv((int) Math.floor(x), size) & 0x1FFFFF) << 42)
+                | ((long) (Math.floorDiv((int) Math.floor(z), size) & 0x1FFFFF) << 21)
+                | (Math.floorDiv((int) Math.floor(y), size) & 0x1FFFFF);
+        //? if >=1.18.2
+        Key key = new Key(target != null ? target : level, sound.value(), source, bucket);
+        //? if <1.18.2
+        /*Key key = new Key(target != null ? target : level, sound, source, bucket);*/
+
+        Pending pending = PENDING.get(key);
+        if (pending == null) {
+            PENDING.put(key, new Pending(level, target, x, y, z, sound, source, volume, pitch));
+        } else {
+            pending.volume = Math.max(pending.volume, volume);
+        }
+    }
+
+    private static void flush() {
+        if (PENDING.isEmpty()) {
+            return;
+        }
+        int cap = maxSoundsPerPlayer;
+        for (Pending pending : PENDING.values()) {
+            ClientboundSoundPacket packet = pending.packet();
+            if (pending.target != null) {
+                send(pending.target, packet, cap);
+                continue;
+            }
+            // Same range as the level's own broadcast
+            //? if >=1.19.3
+            double range = pending.sound.value().getRange(pending.volume);
+            //? if <1.19.3
+            /*double range = pending.volume > 1.0f ? 16.0d * pending.volume : 16.0d;*/
+            double rangeSqr = range * range;
+            for (ServerPlayer player : pending.level.players()) {
+                if (player.distanceToSqr(pending.x, pending.y, pending.z) < rangeSqr) {
+                    send(player, packet, cap);
+                }
+            }
+        }
+        PENDING.clear();
+        SENT.clear();
+    }
+
+    private static void send(ServerPlayer player, ClientboundSoundPacket packet, int cap) {
+        int sent = SENT.getInt(player);
+        if (sent < cap) {
+            SENT.put(player, sent + 1);
+            PlayerCompat.sendPacket(player, packet);
+        }
+    }
+
+    /**
+     * What makes two sound requests the same: who hears them, the sound, the source and the position bucket.
+     */
+    private record Key(Object audience, SoundEvent sound, SoundSource source, long bucket) {
+    }
+
+    /**
+     * A merged sound waiting for the end of the tick.
+     */
+    private static final class Pending {
+        private final ServerLevel level;
+        private final @Nullable ServerPlayer target;
+        private final double x;
+        private final double y;
+        private final double z;
+        //? if >=1.18.2
+        private final Holder<SoundEvent> sound;
+        //? if <1.18.2
+        /*private final SoundEvent sound;*/
+        private final SoundSource source;
+        private final float pitch;
+        private float volume;
+
+        private Pending(ServerLevel level, @Nullable ServerPlayer target, double x, double y, double z,
+                //? if >=1.18.2
+                Holder<SoundEvent> sound,
+                //? if <1.18.2
+                /*SoundEvent sound,*/
+                SoundSource source, float volume, float pitch) {
+            this.level = level;
+            this.target = target;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.sound = sound;
+            this.source = source;
+            this.volume = volume;
+            this.pitch = pitch;
+        }
+
+        private ClientboundSoundPacket packet() {
+            //? if >=1.19.3 {
+            return new ClientboundSoundPacket(sound, source, x, y, z, volume, pitch, level.getRandom().nextLong());
+            //?} else if >=1.19 {
+            /*return new ClientboundSoundPacket(sound.value(), source, x, y, z, volume, pitch, level.getRandom().nextLong());*/
+            //?} else if >=1.18.2 {
+            /*return new ClientboundSoundPacket(sound.value(), source, x, y, z, volume, pitch);*/
+            //?} else {
+            /*return new ClientboundSoundPacket(sound, source, x, y, z, volume, pitch);*/
+            //?}
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.iamkaf.amber.api.world.v1;
+
+//? if >=1.19 {
+import com.iamkaf.amber.api.event.v1.events.common.WorldEvents;
+import com.iamkaf.amber.compat.WorldCompat;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+//? if >=1.19.3
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.levelgen.structure.Structure;
+import net.minecraft.world.level.levelgen.structure.StructurePiece;
+import net.minecraft.world.level.levelgen.structure.StructureStart;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers "is this position inside a structure" from cached structure bounding boxes.
+ * <p>
+ * The first query in a chunk collects the structure starts referenced by that chunk, along with their piece
+ * bounding boxes, and keeps them in a per-level table. Later queries in the same chunk are a table lookup
+ * followed by box tests. Structure starts do not change once a chunk is loaded, so entries stay valid; the
+ * least recently used chunks are dropped once a level holds {@link #setCapacity(int) too many}, and all of
+ * a level's entries are dropped when it unloads. Chunks that are not loaded are never loaded and never
+ * contain anything.
+ * <p>
+ * Queries must be made on the level's thread.
+ */
+public final class StructureCache {
+    private static final AtomicBoolean LISTENERS_REGISTERED = new AtomicBoolean(false);
+    private static final Map<Level, Long2ObjectLinkedOpenHashMap<Start[]>> LEVELS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Start[] NO_STARTS = new Start[0];
+    private static volatile int capacity = 1024;
+
+    private StructureCache() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Sets the number of chunks cached per level.
+     *
+     * @param capacity the number of chunks, at least 16
+     */
+    public static void setCapacity(int capacity) {
+        if (capacity < 16) {
+            throw new IllegalArgumentException("capacity must be at least 16");
+        }
+        StructureCache.capacity = capacity;
+    }
+
+    /**
+     * Checks whether a position is inside a piece of a structure.
+     *
+     * @param level     the level
+     * @param position  the position
+     * @param structure the structure to look for
+     * @return {@code true} if the position is inside a piece of a matching structure
+     */
+    public static boolean isInside(Level level, BlockPos position, ResourceKey<Structure> structure) {
+        return isInside(level, WorldCompat.blockX(position), WorldCompat.blockY(position), WorldCompat.blockZ(position), structure);
+    }
+
+    /**
+     * Checks many positions at once. Consecutive positions in the same chunk share one lookup.
+     *
+     * @param level           the level
+     * @param packedPositions {@linkplain BlockPos#asLong packed positions} to check
+     * @param count           how many entries of {@code packedPositions} to check
+     * @param structure       the structure to look for
+     * @param results         receives whether each position is inside the structure
+     * @return the number of positions inside the structure
+     */
+    public static int isInside(Level level, long[] packedPositions, int count, ResourceKey<Structure> structure, boolean[] results) {
+        if (results.length < count) {
+            throw new IllegalArgumentException("results only holds " + results.length + " of " + count + " positions");
+        }
+        long chunkKey = Long.MIN_VALUE;
+        Start[] starts = NO_STARTS;
+        int inside = 0;
+        for (int i = 0; i < count; i++) {
+            long packed = packedPositions[i];
+            int x = BlockPos.getX(packed);
+            int y = BlockPos.getY(packed);
+            int z = BlockPos.getZ(packed);
+            long key = ChunkPos.asLong(x >> 4, z >> 4);
+            if (key != chunkKey) {
+                chunkKey = key;
+                starts = starts(level, x >> 4, z >> 4);
+            }
+            results[i] = contains(starts, x, y, z, structure);
+            if (results[i]) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Drops every cached chunk of a level.
+     */
+    public static void invalidate(Level level) {
+        LEVELS.remove(level);
+    }
+
+    private static boolean isInside(Level level, int x, int y, int z, ResourceKey<Structure> structure) {
+        return contains(starts(level, x >> 4, z >> 4), x, y, z, structure);
+    }
+
+    private static boolean contains(Start[] starts, int x, int y, int z, ResourceKey<Structure> structure) {
+        for (Start start : starts) {
+            if (start.key.equals(structure) && start.contains(x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Start[] starts(Level level, int chunkX, int chunkZ) {
+        if (!(level instanceof ServerLevel serverLevel) || level.getChunkSource().getChunkNow(chunkX, chunkZ) == null) {
+            return NO_STARTS;
+        }
+
+        Long2ObjectLinkedOpenHashMap<Start[]> chunks = LEVELS.get(level);
+        if (chunks == null) {
+            registerListeners();
+            chunks = new Long2ObjectLinkedOpenHashMap<>();
+            LEVELS.put(level, chunks);
+        }
+
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        Start[] starts = chunks.getAndMoveToLast(key);
+        if (starts == null) {
+            starts = collect(serverLevel, new ChunkPos(chunkX, chunkZ));
+            chunks.putAndMoveToLast(key, starts);
+            while (chunks.size() > capacity) {
+                chunks.removeFirst();
+            }
+        }
+        return starts;
+    }
+
+    private static Start[] collect(ServerLevel level, ChunkPos chunk) {
+        List<StructureStart> found = level.structureManager().startsForStructure(chunk, structure -> true);
+        if (found.isEmpty()) {
+            return NO_STARTS;
+        }
+
+        //? if >=1.21.2
+        Registry<Structure> registry = level.registryAccess().lookupOrThrow(Registries.STRUCTURE);
+        //? if <1.21.2 && >=1.19.3
+        /*Registry<Structure> registry = level.registryAccess().registryOrThrow(Registries.STRUCTURE);*/
+        //? if <1.19.3
+        /*Registry<Structure> registry = level.registryAccess().registryOrThrow(Registry.STRUCTURE_REGISTRY);*/
+
+        Start[] starts = new Start[found.size()];
+        int count = 0;
+        for (StructureStart start : found) {
+            ResourceKey<Structure> key = registry.getResourceKey(start.getStructure()).orElse(null);
+            if (key != null) {
+                starts[count++] = Start.of(key, start);
+            }
+        }
+        return count == starts.length ? starts : Arrays.copyOf(starts, count);
+    }
+
+    private static void registerListeners() {
+        if (LISTENERS_REGISTERED.compareAndSet(false, true)) {
+            WorldEvents.WORLD_UNLOAD.register((server, level) -> LEVELS.remove(level));
+        }
+    }
+
+    /**
+     * A structure start's overall bounds followed by the bounds of each of its pieces, six ints per box.
+     */
+    private record Start(ResourceKey<Structure> key, int[] boxes) {
+        private static Start of(ResourceKey<Structure> key, StructureStart start) {
+            List<StructurePiece> pieces = start.getPieces();
+            int[] boxes = new int[(pieces.size() + 1) * 6];
+            write(boxes, 0, start.getBoundingBox());
+            for (int i = 0; i < pieces.size(); i++) {
+                write(boxes, (i + 1) * 6, pieces.get(i).getBoundingBox());
+            }
+            return new Start(key, boxes);
+        }
+
+        private static void write(int[] boxes, int offset, BoundingBox box) {
+            boxes[offset] = box.minX();
+            boxes[offset + 1] = box.minY();
+            boxes[offset + 2] = box.minZ();
+            boxes[offset + 3] = box.maxX();
+            boxes[offset + 4] = box.maxY();
+            boxes[offset + 5] = box.maxZ();
+        }
+
+        private boolean contains(int x, int y, int z) {
+            if (!inside(0, x, y, z)) {
+                return false;
+            }
+            for (int offset = 6; offset < boxes.length; offset += 6) {
+                if (inside(offset, x, y, z)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean inside(int offset, int x, int y, int z) {
+            return x >= boxes[offset] && x <= boxes[offset + 3]
+                    && y >= boxes[offset + 1] && y <= boxes[offset + 4]
+                    && z >= boxes[offset + 2] && z <= boxes[offset + 5];
+        }
+    }
+}
+//?}
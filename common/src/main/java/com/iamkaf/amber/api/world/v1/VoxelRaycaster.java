@@ -0,0 +1,362 @@
+package com.iamkaf.amber.api.world.v1;
+
+import com.iamkaf.amber.compat.WorldCompat;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Casts many rays through a level's voxel grid, for turrets, line of sight checks and beams.
+ * <p>
+ * Rays step from block to block with a DDA traversal instead of vanilla's per-call clip, and the current
+ * chunk and section are cached between steps and across the rays of a batch, so rays from nearby origins
+ * mostly reuse the same lookups. The cache is dropped at the start of every call, since chunks may unload
+ * and sections may change between calls. A block is hit when it matches the blocking predicate; by default, when it has a
+ * collision shape. Shapes are treated as full blocks, so results are coarser than
+ * {@code Level.clip} for stairs, slabs and similar blocks.
+ * <p>
+ * When an entity filter is set, entity hits are found in the same pass: candidates are gathered once
+ * per {@link #castAll} call for the bounds of every ray, and each ray reports whichever of its nearest
+ * block and entity comes first. Chunks that are not loaded are treated as empty and never loaded.
+ * <p>
+ * Raycasters must be used on the level's thread and are not thread safe.
+ */
+public final class VoxelRaycaster {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final Level level;
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private Predicate<BlockState> blocking;
+    private @Nullable Predicate<Entity> entityFilter;
+
+    private long cachedChunkKey = Long.MIN_VALUE;
+    private @Nullable LevelChunk cachedChunk;
+    private int cachedSectionY = Integer.MIN_VALUE;
+    private @Nullable LevelChunkSection cachedSection;
+
+    private VoxelRaycaster(Level level) {
+        this.level = level;
+        this.blocking = state -> !state.getCollisionShape(level, cursor).isEmpty();
+    }
+
+    /**
+     * Creates a raycaster for a level.
+     *
+     * @param level the level to cast rays in
+     * @return the raycaster
+     */
+    public static VoxelRaycaster create(Level level) {
+        return new VoxelRaycaster(level);
+    }
+
+    /**
+     * Sets which block states stop rays. Defaults to states with a non-empty collision shape.
+     *
+     * @return this raycaster
+     */
+    public VoxelRaycaster blocking(Predicate<BlockState> blocking) {
+        this.blocking = blocking;
+        return this;
+    }
+
+    /**
+     * Enables entity hits for entities matching a filter, such as everything but the shooter.
+     *
+     * @param entityFilter the filter, or {@code null} to only hit blocks
+     * @return this raycaster
+     */
+    public VoxelRaycaster entities(@Nullable Predicate<Entity> entityFilter) {
+        this.entityFilter = entityFilter;
+        return this;
+    }
+
+    /**
+     * Checks whether nothing blocks the line between two points, stopping at the first blocking block.
+     * Entities are ignored.
+     *
+     * @return {@code true} if no block is in the way
+     */
+    public boolean hasLineOfSight(Vec3 from, Vec3 to) {
+        resetCache();
+        return traverse(WorldCompat.vecX(from), WorldCompat.vecY(from), WorldCompat.vecZ(from),
+                WorldCompat.vecX(to), WorldCompat.vecY(to), WorldCompat.vecZ(to), 1D, null) < 0;
+    }
+
+    /**
+     * Casts a single ray.
+     *
+     * @param from the start of the ray
+     * @param to   the end of the ray
+     * @return the nearest hit
+     */
+    public Hit cast(Vec3 from, Vec3 to) {
+        Hit hit = new Hit();
+        castAll(new Vec3[]{from}, new Vec3[]{to}, new Hit[]{hit});
+        return hit;
+    }
+
+    /**
+     * Casts a batch of rays, gathering entity candidates once for the whole batch.
+     * {@code out} entries are reused when present and created when {@code null}.
+     *
+     * @param from the start of each ray
+     * @param to   the end of each ray
+     * @param out  receives the nearest hit of each ray
+     */
+    public void castAll(Vec3[] from, Vec3[] to, Hit[] out) {
+        if (from.length != to.length || out.length < from.length) {
+            throw new IllegalArgumentException("Mismatched ray arrays");
+        }
+        resetCache();
+        List<Entity> candidates = entityCandidates(from, to);
+
+        for (int i = 0; i < from.length; i++) {
+            Hit hit = out[i] == null ? (out[i] = new Hit()) : out[i];
+            hit.reset();
+            double x0 = WorldCompat.vecX(from[i]), y0 = WorldCompat.vecY(from[i]), z0 = WorldCompat.vecZ(from[i]);
+            double x1 = WorldCompat.vecX(to[i]), y1 = WorldCompat.vecY(to[i]), z1 = WorldCompat.vecZ(to[i]);
+            hit.fromX = x0;
+            hit.fromY = y0;
+            hit.fromZ = z0;
+            hit.deltaX = x1 - x0;
+            hit.deltaY = y1 - y0;
+            hit.deltaZ = z1 - z0;
+
+            double limit = 1D;
+            for (int j = 0, size = candidates.size(); j < size; j++) {
+                Entity entity = candidates.get(j);
+                double t = intersect(entity.getBoundingBox(), x0, y0, z0, hit.deltaX, hit.deltaY, hit.deltaZ, limit);
+                if (t >= 0) {
+                    limit = t;
+                    hit.type = Hit.Type.ENTITY;
+                    hit.entity = entity;
+                    hit.fraction = t;
+                }
+            }
+
+            traverse(x0, y0, z0, x1, y1, z1, limit, hit);
+        }
+    }
+
+    /**
+     * Walks the voxels along a ray up to the fraction {@code limit} of its length.
+     *
+     * @return the fraction at which a blocking block was entered, or -1
+     */
+    private double traverse(double x0, double y0, double z0, double x1, double y1, double z1, double limit, @Nullable Hit hit) {
+        double dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+        int x = (int) Math.floor(x0), y = (int) Math.floor(y0), z = (int) Math.floor(z0);
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1D / dx);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1D / dy);
+        double deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : Math.abs(1D / dz);
+        double maxX = stepX == 0 ? Double.POSITIVE_INFINITY : deltaX * (stepX > 0 ? x + 1 - x0 : x0 - x);
+        double maxY = stepY == 0 ? Double.POSITIVE_INFINITY : deltaY * (stepY > 0 ? y + 1 - y0 : y0 - y);
+        double maxZ = stepZ == 0 ? Double.POSITIVE_INFINITY : deltaZ * (stepZ > 0 ? z + 1 - z0 : z0 - z);
+
+        double t = 0D;
+        Direction face = null;
+        while (t <= limit) {
+            if (blocking.test(stateAt(x, y, z))) {
+                if (hit != null) {
+                    hit.type = Hit.Type.BLOCK;
+                    hit.entity = null;
+                    hit.blockPos.set(x, y, z);
+                    hit.face = face;
+                    hit.fraction = t;
+                }
+                return t;
+            }
+
+            if (maxX < maxY && maxX < maxZ) {
+                t = maxX;
+                maxX += deltaX;
+                x += stepX;
+                face = stepX > 0 ? Direction.WEST : Direction.EAST;
+            } else if (maxY < maxZ) {
+                t = maxY;
+                maxY += deltaY;
+                y += stepY;
+                face = stepY > 0 ? Direction.DOWN : Direction.UP;
+            } else {
+                t = maxZ;
+                maxZ += deltaZ;
+                z += stepZ;
+                face = stepZ > 0 ? Direction.NORTH : Direction.SOUTH;
+            }
+        }
+        return -1D;
+    }
+
+    private void resetCache() {
+        cachedChunkKey = Long.MIN_VALUE;
+        cachedChunk = null;
+        cachedSectionY = Integer.MIN_VALUE;
+        cachedSection = null;
+    }
+
+    private BlockState stateAt(int x, int y, int z) {
+        cursor.set(x, y, z);
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        long chunkKey = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        if (chunkKey != cachedChunkKey) {
+            cachedChunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+            cachedChunkKey = chunkKey;
+            cachedSectionY = Integer.MIN_VALUE;
+        }
+        if (cachedChunk == null) {
+            return AIR;
+        }
+
+        int sectionY = y >> 4;
+        if (sectionY != cachedSectionY) {
+            LevelChunkSection[] sections = cachedChunk.getSections();
+            //? if >=1.17
+            int index = cachedChunk.getSectionIndexFromSectionY(sectionY);
+            //? if <1.17
+            /*int index = sectionY;*/
+            cachedSection = index < 0 || index >= sections.length ? null : sections[index];
+            //? if >=1.18 {
+            if (cachedSection != null && cachedSection.hasOnlyAir()) {
+                cachedSection = null;
+            }
+            //?}
+            cachedSectionY = sectionY;
+        }
+        if (cachedSection == null) {
+            return AIR;
+        }
+        return cachedSection.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    private List<Entity> entityCandidates(Vec3[] from, Vec3[] to) {
+        if (entityFilter == null || from.length == 0) {
+            return Collections.emptyList();
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < from.length * 2; i++) {
+            Vec3 point = i < from.length ? from[i] : to[i - from.length];
+            minX = Math.min(minX, WorldCompat.vecX(point));
+            minY = Math.min(minY, WorldCompat.vecY(point));
+            minZ = Math.min(minZ, WorldCompat.vecZ(point));
+            maxX = Math.max(maxX, WorldCompat.vecX(point));
+            maxY = Math.max(maxY, WorldCompat.vecY(point));
+            maxZ = Math.max(maxZ, WorldCompat.vecZ(point));
+        }
+        return WorldCompat.entities(level, null, new AABB(minX, minY, minZ, maxX, maxY, maxZ), entityFilter);
+    }
+
+    /**
+     * Slab test of a ray against a box.
+     *
+     * @return the entry fraction within {@code [0, limit)}, or -1 if the ray misses or enters later
+     */
+    private static double intersect(AABB box, double x0, double y0, double z0, double dx, double dy, double dz, double limit) {
+        double near = 0D;
+        double far = limit;
+
+        if (dx == 0D) {
+            if (x0 < box.minX || x0 > box.maxX) return -1D;
+        } else {
+            double t1 = (box.minX - x0) / dx, t2 = (box.maxX - x0) / dx;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (dy == 0D) {
+            if (y0 < box.minY || y0 > box.maxY) return -1D;
+        } else {
+            double t1 = (box.minY - y0) / dy, t2 = (box.maxY - y0) / dy;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (dz == 0D) {
+            if (z0 < box.minZ || z0 > box.maxZ) return -1D;
+        } else {
+            double t1 = (box.minZ - z0) / dz, t2 = (box.maxZ - z0) / dz;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        return near <= far && near < limit ? near : -1D;
+    }
+
+    /**
+     * The nearest hit of a ray. Instances are reused by {@link #castAll}.
+     */
+    public static final class Hit {
+        /**
+         * What a ray hit.
+         */
+        public enum Type {
+            MISS,
+            BLOCK,
+            ENTITY
+        }
+
+        private final BlockPos.MutableBlockPos blockPos = new BlockPos.MutableBlockPos();
+        private Type type = Type.MISS;
+        private @Nullable Entity entity;
+        private @Nullable Direction face;
+        private double fraction = 1D;
+        private double fromX, fromY, fromZ;
+        private double deltaX, deltaY, deltaZ;
+
+        private void reset() {
+            type = Type.MISS;
+            entity = null;
+            face = null;
+            fraction = 1D;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the block that was hit. Only meaningful for {@link Type#BLOCK} hits, and reused between casts.
+         */
+        public BlockPos getBlockPos() {
+            return blockPos;
+        }
+
+        /**
+         * Gets the face of the block the ray entered through, or {@code null} if the ray started inside it.
+         */
+        public @Nullable Direction getFace() {
+            return face;
+        }
+
+        public @Nullable Entity getEntity() {
+            return entity;
+        }
+
+        /**
+         * Gets how far along the ray the hit is, from 0 at the start to 1 at the end.
+         */
+        public double getFraction() {
+            return fraction;
+        }
+
+        /**
+         * Gets the point where the ray hit, or its end for a miss.
+         */
+        public Vec3 getLocation() {
+            return new Vec3(fromX + deltaX * fraction, fromY + deltaY * fraction, fromZ + deltaZ * fraction);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.iamkaf.amber.Constants;
 import com.iamkaf.amber.api.commands.v1.SimpleCommands;
 import com.iamkaf.amber.api.core.v2.AmberModInfo;
 import com.iamkaf.amber.api.event.v1.events.common.CommandEvents;
+import com.iamkaf.amber.api.networking.v1.NetworkMetrics;
+import com.iamkaf.amber.api.networking.v1.PacketStats;
 import com.iamkaf.amber.api.platform.v1.ModInfo;
 import com.iamkaf.amber.api.platform.v1.Platform;
 import com.iamkaf.amber.networking.v1.AmberNetworking;
@@ -14,12 +16,20 @@ import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import net.minecraft.ChatFormatting;
 import net.minecraft.SharedConstants;
 import net.minecraft.commands.CommandSourceStack;
+//? if >=1.21.11
+import net.minecraft.commands.Commands;
 import net.minecraft.network.chat.Component;
 //? if >=1.19
 import net.minecraft.network.chat.MutableComponent;
 //? if <1.19
 /*import net.minecraft.network.chat.TextComponent;*/
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
 public class AmberCommands {
 
     private static final LiteralArgumentBuilder<CommandSourceStack> DOCTOR_COMMAND =
@@ -39,6 +49,110 @@ public class AmberCommands {
                 return Command.SINGLE_SUCCESS;
             });
 
+    private static final int NET_STATS_ROWS = 10;
+    private static final DateTimeFormatter EXPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final LiteralArgumentBuilder<CommandSourceStack> NET_COMMAND =
+            LiteralArgumentBuilder.<CommandSourceStack>literal("net")
+                    // Toggles server-wide metrics and writes files to the server's disk, so operators only
+                    //? if >=1.21.11
+                    .requires(Commands.hasPermission(Commands.LEVEL_GAMEMASTERS))
+                    //? if <1.21.11
+                    /*.requires(source -> source.hasPermission(2))*/
+                    .then(LiteralArgumentBuilder.<CommandSourceStack>literal("stats").executes(commandContext -> {
+                        sendMessage(commandContext.getSource(), netStatsMessage());
+                        return Command.SINGLE_SUCCESS;
+                    }))
+                    .then(LiteralArgumentBuilder.<CommandSourceStack>literal("enable").executes(commandContext -> {
+                        NetworkMetrics.setEnabled(true);
+                        sendMessage(commandContext.getSource(), literal("Network metrics enabled"));
+                        return Command.SINGLE_SUCCESS;
+                    }))
+                    .then(LiteralArgumentBuilder.<CommandSourceStack>literal("disable").executes(commandContext -> {
+                        NetworkMetrics.setEnabled(false);
+                        sendMessage(commandContext.getSource(), literal("Network metrics disabled"));
+                        return Command.SINGLE_SUCCESS;
+                    }))
+                    .then(LiteralArgumentBuilder.<CommandSourceStack>literal("reset").executes(commandContext -> {
+                        NetworkMetrics.reset();
+                        sendMessage(commandContext.getSource(), literal("Network metrics reset"));
+                        return Command.SINGLE_SUCCESS;
+                    }))
+                    .then(LiteralArgumentBuilder.<CommandSourceStack>literal("export").executes(commandContext -> {
+                        Path file = Platform.getGameFolder()
+                                .resolve("amber")
+                                .resolve("net-stats-" + LocalDateTime.now().format(EXPORT_TIMESTAMP) + ".csv");
+                        try {
+                            NetworkMetrics.exportCsv(file);
+                        } catch (IOException e) {
+                            Constants.LOG.error("Failed to export network metrics", e);
+                            commandContext.getSource().sendFailure(literal("Failed to export network metrics: " + e.getMessage()));
+                            return 0;
+                        }
+                        sendMessage(commandContext.getSource(), literal("Network metrics exported to " + file));
+                        return Command.SINGLE_SUCCESS;
+                    }));
+
+    private static void sendMessage(CommandSourceStack source, Component message) {
+        //? if >=1.20
+        source.sendSuccess(() -> message, false);
+        //? if <1.20
+        /*source.sendSuccess(message, false);*/
+    }
+
+    //? if >=1.19
+    private static MutableComponent netStatsMessage() {
+    //? if <1.19
+    /*private static TextComponent netStatsMessage() {*/
+        var message = literal("Amber Network Stats (" + (NetworkMetrics.isEnabled() ? "enabled" : "disabled") + ")\n");
+        List<PacketStats> stats = NetworkMetrics.getStats();
+        if (stats.isEmpty()) {
+            message.append(" - No packets registered\n");
+            return message;
+        }
+        for (PacketStats packet : stats.subList(0, Math.min(NET_STATS_ROWS, stats.size()))) {
+            message.append(literal(packet.channelId() + " " + packet.packetClass().getSimpleName() + "\n")
+                    .withStyle(ChatFormatting.GOLD));
+            message.append(String.format(
+                    "   tx %d (%s) rx %d (%s)\n",
+                    packet.packetsSent(), formatBytes(packet.bytesSent()),
+                    packet.packetsReceived(), formatBytes(packet.bytesReceived())
+            ));
+            message.append(String.format(
+                    "   enc %s dec %s handler %s queue %s task %s (p99)\n",
+                    formatNanos(packet.encodeNanos().percentileNanos(0.99)),
+                    formatNanos(packet.decodeNanos().percentileNanos(0.99)),
+                    formatNanos(packet.handlerNanos().percentileNanos(0.99)),
+                    formatNanos(packet.queueNanos().percentileNanos(0.99)),
+                    formatNanos(packet.taskNanos().percentileNanos(0.99))
+            ));
+        }
+        if (stats.size() > NET_STATS_ROWS) {
+            message.append(" - " + (stats.size() - NET_STATS_ROWS) + " more, use /amber net export\n");
+        }
+        return message;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024.0);
+        }
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
     //? if >=1.19
     private static MutableComponent doctorMessage(ModInfo modInfo) {
     //? if <1.19
@@ -84,7 +198,8 @@ public class AmberCommands {
         Constants.LOG.info("Registering Amber commands for {}", Services.PLATFORM.getPlatformName());
         CommandEvents.EVENT.register((dispatcher, registryAccess, environment) -> {
             dispatcher.register(SimpleCommands.createBaseCommand(Constants.MOD_ID)
-                    .then(DOCTOR_COMMAND));
+                    .then(DOCTOR_COMMAND)
+                    .then(NET_COMMAND));
         });
     }
 }
@@ -1,9 +1,14 @@
 package com.iamkaf.amber.networking.v1;
 
 import com.iamkaf.amber.Constants;
+import com.iamkaf.amber.api.event.v1.events.common.PlayerEvents;
+import com.iamkaf.amber.api.event.v1.events.common.ServerTickEvents;
+import com.iamkaf.amber.api.networking.v1.LatencyStats;
 import com.iamkaf.amber.api.networking.v1.NetworkChannel;
+import com.iamkaf.amber.api.networking.v1.PacketPriority;
 import net.minecraft.resources.Identifier;
 import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -28,6 +33,7 @@ public class AmberNetworking {
     // Latency tracking
     private static final AtomicLong totalPings = new AtomicLong(0);
     private static final AtomicLong totalLatency = new AtomicLong(0);
+    private static final PlayerLatencyTracker LATENCY = new PlayerLatencyTracker();
     
     private static boolean initialized = false;
     
@@ -59,6 +65,13 @@ public class AmberNetworking {
                 PongPacket.HANDLER
             );
             
+            PlayerEvents.PLAYER_JOIN.register(player -> {
+                LATENCY.track(player);
+                sendWelcomePing(player);
+            });
+            PlayerEvents.PLAYER_LEAVE.register(LATENCY::forget);
+            ServerTickEvents.END_SERVER_TICK.register(LATENCY::tick);
+            
             initialized = true;
             Constants.LOG.info("Amber internal networking initialized");
             
@@ -81,11 +94,12 @@ public class AmberNetworking {
         }
         
         try {
-            long timestamp = System.currentTimeMillis();
+            long timestamp = System.nanoTime();
             String message = "Amber ping: " + reason;
             PingPacket pingPacket = new PingPacket(timestamp, message);
             
-            CHANNEL.sendToPlayer(pingPacket, player);
+            LATENCY.onProbeSent(player, timestamp);
+            CHANNEL.sendToPlayer(pingPacket, player, PacketPriority.CRITICAL);
             
             Constants.LOG.debug("Sent ping to player {}: {} (timestamp: {})", 
                                player.getName().getString(), reason, timestamp);
@@ -147,6 +161,52 @@ public class AmberNetworking {
         Constants.LOG.debug("Recorded latency: total={}ms, network={}ms", totalLatency, networkLatency);
     }
     
+    /**
+     * Record a pong received from a player.
+     * Used internally by the pong packet handler, on the server thread.
+     * 
+     * @param player The player who answered the ping
+     * @param pongPacket The pong packet echoing the server's ping timestamp
+     * @param receivedNanos The server's {@link System#nanoTime()} when the pong arrived, before it waited for the server thread
+     */
+    public static void recordPong(ServerPlayer player, PongPacket pongPacket, long receivedNanos) {
+        long roundTrip = LATENCY.onPong(player, pongPacket.originalTimestamp(), receivedNanos);
+        if (roundTrip < 0) {
+            Constants.LOG.debug("Ignoring unexpected pong from {}", player.getName().getString());
+            return;
+        }
+        long roundTripMillis = roundTrip / 1_000_000L;
+        recordLatency(roundTripMillis, roundTripMillis);
+    }
+    
+    /**
+     * Get the rolling round trip statistics for a player.
+     * 
+     * @param player The player
+     * @return The statistics, or null if no ping-pong cycle has completed yet
+     */
+    public static @Nullable LatencyStats getLatencyStats(ServerPlayer player) {
+        return LATENCY.stats(player);
+    }
+    
+    /**
+     * Get the number of ticks between latency probes to the same player.
+     * 
+     * @return The probe interval in ticks, 0 if disabled
+     */
+    public static int getProbeInterval() {
+        return LATENCY.getProbeInterval();
+    }
+    
+    /**
+     * Set the number of ticks between latency probes to the same player.
+     * 
+     * @param ticks The probe interval in ticks, or 0 to disable periodic probes
+     */
+    public static void setProbeInterval(int ticks) {
+        LATENCY.setProbeInterval(ticks);
+    }
+    
     /**
      * Get the average network latency across all recorded ping-pong cycles.
      * 
@@ -12,7 +12,7 @@ import net.minecraft.network.FriendlyByteBuf;
  * Ping packet for Amber's networking diagnostics.
  * Sent from server to client to measure latency and connectivity.
  *
- * @param timestamp the timestamp when the ping was sent
+ * @param timestamp the server's {@link System#nanoTime()} when the ping was sent, echoed back in the pong
  * @param message the message payload for debugging purposes
  */
 public record PingPacket(long timestamp, String message) implements Packet<PingPacket> {
@@ -34,9 +34,8 @@ public record PingPacket(long timestamp, String message) implements Packet<PingP
             context.execute(() -> {
                 Constants.LOG.debug("Amber received ping: {} at {}", packet.message(), packet.timestamp());
                 
-                // Calculate response time and send pong
+                // Echo the server timestamp untouched; the server measures the round trip on its own clock
                 long currentTime = System.currentTimeMillis();
-                long responseTime = currentTime - packet.timestamp();
                 
                 try {
                     PongPacket pongResponse = new PongPacket(
@@ -47,7 +46,7 @@ public record PingPacket(long timestamp, String message) implements Packet<PingP
                     
                     AmberNetworking.sendToServer(pongResponse);
                     
-                    Constants.LOG.debug("Amber sent pong response (response time: {}ms)", responseTime);
+                    Constants.LOG.debug("Amber sent pong response");
                 } catch (Exception e) {
                     Constants.LOG.error("Failed to send pong response", e);
                 }
@@ -0,0 +1,162 @@
+package com.iamkaf.amber.networking.v1;
+
+import com.iamkaf.amber.api.networking.v1.LatencyStats;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side per-player round trip time tracking and probe scheduling.
+ * All timestamps come from the server's {@link System#nanoTime()}, so client clocks never matter.
+ */
+final class PlayerLatencyTracker {
+    static final int DEFAULT_PROBE_INTERVAL = 100;
+    private static final int WINDOW = 64;
+    private static final int MAX_OUTSTANDING = 4;
+
+    private final Map<UUID, PlayerSamples> players = new ConcurrentHashMap<>();
+    private volatile int probeInterval = DEFAULT_PROBE_INTERVAL;
+    private long tick;
+    private int nextSlot;
+
+    void track(ServerPlayer player) {
+        players.computeIfAbsent(player.getUUID(), id -> new PlayerSamples(player, nextSlot++));
+    }
+
+    void forget(ServerPlayer player) {
+        players.remove(player.getUUID());
+    }
+
+    int getProbeInterval() {
+        return probeInterval;
+    }
+
+    void setProbeInterval(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("Probe interval cannot be negative");
+        }
+        probeInterval = ticks;
+    }
+
+    /**
+     * Sends probes to the players due this tick.
+     * Each player is assigned a fixed slot so probes are spread evenly across the interval.
+     */
+    void tick() {
+        int interval = probeInterval;
+        long current = tick++;
+        if (interval == 0) {
+            return;
+        }
+        for (PlayerSamples samples : players.values()) {
+            if ((current + samples.slot) % interval == 0) {
+                AmberNetworking.pingPlayer(samples.player, "probe");
+            }
+        }
+    }
+
+    /**
+     * Remembers a probe timestamp so only pongs echoing a real probe are accepted.
+     */
+    void onProbeSent(ServerPlayer player, long sentNanos) {
+        PlayerSamples samples = players.get(player.getUUID());
+        if (samples != null) {
+            samples.onProbeSent(sentNanos);
+        }
+    }
+
+    /**
+     * Records a pong received at {@code receivedNanos} and returns the measured round trip in nanoseconds, or -1
+     * if it did not match a probe.
+     */
+    long onPong(ServerPlayer player, long sentNanos, long receivedNanos) {
+        PlayerSamples samples = players.get(player.getUUID());
+        if (samples == null) {
+            return -1;
+        }
+        return samples.onPong(sentNanos, receivedNanos);
+    }
+
+    @Nullable LatencyStats stats(ServerPlayer player) {
+        PlayerSamples samples = players.get(player.getUUID());
+        return samples == null ? null : samples.stats();
+    }
+
+    private static final class PlayerSamples {
+        private final ServerPlayer player;
+        private final int slot;
+        private final long[] window = new long[WINDOW];
+        private final long[] outstanding = new long[MAX_OUTSTANDING];
+        private int outstandingIndex;
+        private int size;
+        private int head;
+        private long last = -1;
+        private double smoothed;
+        private double jitter;
+
+        private PlayerSamples(ServerPlayer player, int slot) {
+            this.player = player;
+            this.slot = slot;
+            Arrays.fill(outstanding, Long.MIN_VALUE);
+        }
+
+        private synchronized void onProbeSent(long sentNanos) {
+            outstanding[outstandingIndex] = sentNanos;
+            outstandingIndex = (outstandingIndex + 1) % MAX_OUTSTANDING;
+        }
+
+        private synchronized long onPong(long sentNanos, long now) {
+            int match = -1;
+            for (int i = 0; i < MAX_OUTSTANDING; i++) {
+                if (outstanding[i] == sentNanos) {
+                    match = i;
+                    break;
+                }
+            }
+            if (match < 0) {
+                return -1;
+            }
+            outstanding[match] = Long.MIN_VALUE;
+
+            long rtt = now - sentNanos;
+            if (last < 0) {
+                smoothed = rtt;
+            } else {
+                // RFC 6298 style smoothing and RFC 3550 interarrival jitter
+                smoothed += (rtt - smoothed) / 8D;
+                jitter += (Math.abs(rtt - last) - jitter) / 16D;
+            }
+            last = rtt;
+            window[head] = rtt;
+            head = (head + 1) % WINDOW;
+            size = Math.min(size + 1, WINDOW);
+            return rtt;
+        }
+
+        private synchronized @Nullable LatencyStats stats() {
+            if (size == 0) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(window, size);
+            Arrays.sort(sorted);
+            return new LatencyStats(
+                    size,
+                    last,
+                    (long) smoothed,
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.95),
+                    percentile(sorted, 0.99),
+                    (long) jitter
+            );
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -7,13 +7,14 @@ import com.iamkaf.amber.api.networking.v1.PacketDecoder;
 import com.iamkaf.amber.api.networking.v1.PacketEncoder;
 import com.iamkaf.amber.api.networking.v1.PacketHandler;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
 
 /**
  * Pong packet for Amber's networking diagnostics.
  * Sent from client to server in response to a PingPacket.
  *
- * @param originalTimestamp the timestamp from the original ping packet
- * @param responseTimestamp the timestamp when the pong was created
+ * @param originalTimestamp the server timestamp echoed from the original ping packet
+ * @param responseTimestamp the client wall clock time when the pong was created
  * @param message the message payload for debugging purposes
  */
 public record PongPacket(long originalTimestamp, long responseTimestamp, String message) implements Packet<PongPacket> {
@@ -33,20 +34,19 @@ public record PongPacket(long originalTimestamp, long responseTimestamp, String
     
     public static final PacketHandler<PongPacket> HANDLER = (packet, context) -> {
         if (!context.isClientSide()) {
-            // Handle on server side: record latency metrics
+            // Handle on server side: record latency metrics.
+            // Read the clock on arrival, so time spent waiting for the server thread is not counted as latency
+            long receivedNanos = System.nanoTime();
             context.execute(() -> {
-                long currentTime = System.currentTimeMillis();
-                long totalRoundTrip = currentTime - packet.originalTimestamp();
-                long clientProcessingTime = packet.responseTimestamp() - packet.originalTimestamp();
-                long networkLatency = totalRoundTrip - clientProcessingTime;
+                ServerPlayer player = context.getServerPlayer();
+                if (player == null) {
+                    return;
+                }
                 
                 Constants.LOG.debug("Amber received pong: {}", packet.message());
-                Constants.LOG.debug("  Total round-trip time: {}ms", totalRoundTrip);
-                Constants.LOG.debug("  Client processing time: {}ms", clientProcessingTime);
-                Constants.LOG.debug("  Estimated network latency: {}ms", networkLatency);
                 
-                // Store latency metrics
-                AmberNetworking.recordLatency(totalRoundTrip, networkLatency);
+                // The original timestamp is the server's own nanoTime, so the round trip never mixes clocks
+                AmberNetworking.recordPong(player, packet, receivedNanos);
             });
         } else {
             Constants.LOG.warn("PongPacket received on client side - this should not happen");
@@ -1,6 +1,11 @@
 package com.iamkaf.amber.platform;
 
+import com.iamkaf.amber.api.event.v1.events.common.TagEvents;
 import com.iamkaf.amber.platform.services.IAmberEventSetup;
+//? if >=1.19.4
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+//? if <1.19.4 && >=1.16.2
+/*import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;*/
 
 public class FabricAmberEventSetup implements IAmberEventSetup {
     @Override
@@ -13,6 +18,7 @@ public class FabricAmberEventSetup implements IAmberEventSetup {
         FabricAmberEventHandlers.registerBlockInteractionEvents();
         FabricAmberEventHandlers.registerDefaultItemComponentEvents();
         FabricAmberEventHandlers.registerCreativeTabEvents();
+        registerTagEvents();
     }
 
     @Override
@@ -30,4 +36,14 @@ public class FabricAmberEventSetup implements IAmberEventSetup {
         FabricAmberEventHandlers.registerWorldLifecycleEvents();
         FabricAmberEventHandlers.registerPlayerLifecycleEvents();
     }
+
+    private static void registerTagEvents() {
+        //? if >=1.19.4 {
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+        //?} else if >=1.16.2 {
+        /*// No tags loaded event yet, so use the server's data pack lifecycle
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resources, success) -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+        *///?}
+    }
 }
@@ -1,6 +1,10 @@
 package com.iamkaf.amber.platform;
 
+import com.iamkaf.amber.api.event.v1.events.common.TagEvents;
 import com.iamkaf.amber.platform.services.IAmberEventSetup;
+//? if <1.21.6
+/*import net.minecraftforge.common.MinecraftForge;*/
+import net.minecraftforge.event.TagsUpdatedEvent;
 
 public class ForgeAmberEventSetup implements IAmberEventSetup {
     @Override
@@ -19,6 +23,7 @@ public class ForgeAmberEventSetup implements IAmberEventSetup {
         ForgeAmberEventHandlers.registerShieldBlockEvents();
         ForgeAmberEventHandlers.registerCreativeTabEvents();
         ForgeAmberEventHandlers.registerDefaultItemComponentEvents();
+        registerTagEvents();
     }
 
     @Override
@@ -40,4 +45,14 @@ public class ForgeAmberEventSetup implements IAmberEventSetup {
         ForgeAmberEventHandlers.registerItemEvents();
         ForgeAmberEventHandlers.registerCraftItemEvents();
     }
+
+    private static void registerTagEvents() {
+        //? if >=1.21.6 {
+        TagsUpdatedEvent.BUS.addListener(event -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+        //?} else if >=1.17 {
+        /*MinecraftForge.EVENT_BUS.addListener((TagsUpdatedEvent event) -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+        *///?} else {
+        /*MinecraftForge.EVENT_BUS.addListener((TagsUpdatedEvent.VanillaTagTypes event) -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+        *///?}
+    }
 }
@@ -1,6 +1,9 @@
 package com.iamkaf.amber.platform;
 
+import com.iamkaf.amber.api.event.v1.events.common.TagEvents;
 import com.iamkaf.amber.platform.services.IAmberEventSetup;
+import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
 
 public class NeoForgeAmberEventSetup implements IAmberEventSetup {
     @Override
@@ -19,6 +22,7 @@ public class NeoForgeAmberEventSetup implements IAmberEventSetup {
         NeoForgeAmberEventHandlers.registerShieldBlockEvents();
         NeoForgeAmberEventHandlers.registerCreativeTabEvents();
         NeoForgeAmberEventHandlers.registerDefaultItemComponentEvents();
+        registerTagEvents();
     }
 
     @Override
@@ -37,4 +41,8 @@ public class NeoForgeAmberEventSetup implements IAmberEventSetup {
         NeoForgeAmberEventHandlers.registerPlayerLifecycleEvents();
         NeoForgeAmberEventHandlers.registerItemEvents();
     }
+
+    private static void registerTagEvents() {
+        NeoForge.EVENT_BUS.addListener((TagsUpdatedEvent event) -> TagEvents.TAGS_LOADED.invoker().onTagsLoaded());
+    }
 }